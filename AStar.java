@@ -6,112 +6,152 @@ public class AStar {
     // find path from S to G using 4-direction moves, minimal total enter-cost
     // grid: String[][] with "X" for wall, "S", "G", or numbers as strings
     public static List<Point> findPath(String[][] grid) {
-        int rows = grid.length;
-        int cols = grid[0].length;
-
-        Point start = null, goal = null;
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                String v = grid[r][c];
-                if ("S".equals(v)) start = new Point(r, c);
-                if ("G".equals(v)) goal = new Point(r, c);
+        return findPath(MazeGrid.fromStrings(grid));
+    }
+
+    public static List<Point> findPath(MazeGrid grid) {
+        SolveResult r = solve(grid);
+        return r.found() ? r.path : null;
+    }
+
+    // single search returning path, cost, expansions and time together
+    public static SolveResult solve(MazeGrid grid) {
+        return solve(grid, SolveContext.DEFAULT);
+    }
+
+    public static SolveResult solve(MazeGrid grid, SolveContext ctx) {
+        SolverMetrics metrics = ctx.metrics;
+        long t0 = System.nanoTime();
+        if (grid.start() < 0 || grid.goal() < 0)
+            return new SolveResult("A*", null, -1, 0, System.nanoTime() - t0);
+
+        SearchWorkspace ws = SearchWorkspace.forCurrentThread();
+        long t1 = System.nanoTime();
+        int cost = search(grid, grid.start(), grid.goal(), ws, ctx.cancel, ctx.observer);
+        long t2 = System.nanoTime();
+        List<Point> path = cost < 0 ? null : toPoints(grid, ws);
+        long t3 = System.nanoTime();
+
+        // the indexed heap never holds outdated entries, so there are no stale pops
+        metrics.search(ws.expanded(), ws.pushes(), 0, ws.peakOpen());
+        metrics.phase(SolverMetrics.Phase.SETUP, t1 - t0);
+        metrics.phase(SolverMetrics.Phase.SEARCH, t2 - t1);
+        metrics.phase(SolverMetrics.Phase.RECONSTRUCT, t3 - t2);
+        return new SolveResult("A*", path, cost, ws.expanded(), t3 - t0);
+    }
+
+    // forward from S and backward from G at the same time (see BidirectionalSearch)
+    public static SolveResult solveBidirectional(MazeGrid grid) {
+        return solveBidirectional(grid, SolveContext.DEFAULT);
+    }
+
+    public static SolveResult solveBidirectional(MazeGrid grid, SolveContext ctx) {
+        return BidirectionalSearch.solve(grid, true, ctx);
+    }
+
+    static List<Point> toPoints(MazeGrid grid, SearchWorkspace ws) {
+        List<Point> path = new ArrayList<>(ws.pathLength());
+        for (int k = 0; k < ws.pathLength(); k++) path.add(grid.point(ws.pathCell(k)));
+        return path;
+    }
+
+    // A* engine on flat arrays: indexed heap with decrease-key, g/parent/closed in the workspace
+    // returns the path cost (path left in ws) or -1; allocates nothing once ws has grown to the grid
+    public static int search(MazeGrid grid, int start, int goal, SearchWorkspace ws) {
+        return search(grid, start, goal, ws, CancellationToken.NONE);
+    }
+
+    // same, polling cancel every few thousand expansions (throws CancellationException)
+    public static int search(MazeGrid grid, int start, int goal, SearchWorkspace ws, CancellationToken cancel) {
+        return search(grid, start, goal, ws, cancel, SearchObserver.NONE);
+    }
+
+    // same, and at each poll hands observer a snapshot if it wants one
+    // closed cells are kept in a bitset only while observed (ws stamps them with epochs)
+    public static int search(MazeGrid grid, int start, int goal, SearchWorkspace ws,
+                             CancellationToken cancel, SearchObserver observer) {
+        int rows = grid.rows();
+        int cols = grid.cols();
+        int gr = grid.row(goal), gc = grid.col(goal);
+        int minCost = grid.minCost();
+        // S and G enter for 0; a search between other cells may pass through them, then h gives
+        // up one step per such cell (to stay admissible) and closed cells can be reopened
+        // (h is no longer consistent across the free step). S -> G searches are unaffected
+        int free = 0;
+        if (grid.start() >= 0 && grid.start() != start && grid.start() != goal) free++;
+        if (grid.goal() >= 0 && grid.goal() != start && grid.goal() != goal) free++;
+        int slack = free * minCost;
+
+        ws.begin(rows * cols);
+        IndexedMinHeap open = ws.open;
+        long[] closedBits = observer == SearchObserver.NONE ? null : new long[(rows * cols + 63) >>> 6];
+
+        ws.set(start, 0, -1);
+        open.offer(start, key(0, Math.max(0, heuristic(grid.row(start), grid.col(start), gr, gc, minCost) - slack)));
+        ws.pushes = 1;
+        ws.peakOpen = 1;
+
+        while (!open.isEmpty()) {
+            int cur = open.poll();
+            if (cur == goal) {
+                ws.tracePath(start, goal);
+                return ws.g(goal);
             }
-        }
-        if (start == null || goal == null) return null;
-
-        // find minimum numeric cost (>=1) to use as heuristic factor (avoid overestimating)
-        int minCost = Integer.MAX_VALUE;
-        for (int r = 0; r < rows; r++)
-            for (int c = 0; c < cols; c++) {
-                try {
-                    int val = Integer.parseInt(grid[r][c]);
-                    if (val > 0) minCost = Math.min(minCost, val);
-                } catch (Exception ignored) {}
+            ws.close(cur);
+            if (closedBits != null) closedBits[cur >>> 6] |= 1L << cur;
+            if ((++ws.expanded & CancellationToken.POLL_MASK) == 0) {
+                cancel.check();
+                if (closedBits != null && observer.wantsSnapshot())
+                    observer.publish(new SearchObserver.Snapshot(closedBits.clone(), open.toArray(),
+                            SearchObserver.Snapshot.trace(ws.parent, cur), ws.g(cur), ws.expanded, -1));
             }
-        if (minCost == Integer.MAX_VALUE) minCost = 1;
-
-        // A* state
-        class Node {
-            int r, c;
-            int g; // cost so far
-            int f;
-            Node parent;
-            Node(int r, int c, int g, int f, Node p){ this.r=r;this.c=c;this.g=g;this.f=f;this.parent=p;}
-        }
 
-        Comparator<Node> cmp = Comparator.comparingInt(n -> n.f);
-        PriorityQueue<Node> open = new PriorityQueue<>(cmp);
-        boolean[][] closed = new boolean[rows][cols];
-        int[][] bestG = new int[rows][cols];
-        for (int[] row : bestG) Arrays.fill(row, Integer.MAX_VALUE);
-
-        int h0 = heuristic(start.x, start.y, goal.x, goal.y, minCost);
-        open.add(new Node(start.x, start.y, 0, h0, null));
-        bestG[start.x][start.y] = 0;
-
-        int[][] dirs = { {-1,0},{1,0},{0,-1},{0,1} };
-
-        while(!open.isEmpty()) {
-            Node cur = open.poll();
-            if (closed[cur.r][cur.c]) continue;
-            if (cur.r==goal.x && cur.c==goal.y) {
-                // reconstruct path from start -> goal
-                LinkedList<Point> path = new LinkedList<>();
-                Node p = cur;
-                while (p != null) { path.addFirst(new Point(p.r, p.c)); p = p.parent; }
-                return path;
-            }
-            closed[cur.r][cur.c] = true;
-
-            for (int[] d : dirs) {
-                int nr = cur.r + d[0], nc = cur.c + d[1];
-                if (nr<0||nr>=rows||nc<0||nc>=cols) continue;
-                String val = grid[nr][nc];
-                if ("X".equals(val)) continue; // wall
-
-                int moveCost = cellCost(val);
-                if (moveCost < 0) continue; // skip invalid
-
-                int ng = cur.g + moveCost;
-                if (ng < bestG[nr][nc]) {
-                    bestG[nr][nc] = ng;
-                    int h = heuristic(nr, nc, goal.x, goal.y, minCost);
-                    open.add(new Node(nr,nc,ng, ng + h, cur));
+            int r = cur / cols, c = cur - r * cols;
+            int g = ws.g(cur);
+            for (int d = 0; d < 4; d++) {
+                int nr = r + DR[d], nc = c + DC[d];
+                if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                int ni = nr * cols + nc;
+                if (free == 0 && ws.isClosed(ni)) continue;
+
+                int moveCost = grid.cost(ni);
+                if (moveCost < 0) continue; // wall
+
+                int ng = g + moveCost;
+                if (ng < ws.g(ni)) {
+                    ws.set(ni, ng, cur);
+                    int h = Math.max(0, heuristic(nr, nc, gr, gc, minCost) - slack);
+                    open.offer(ni, key(ng + h, h));
+                    ws.pushes++;
                 }
             }
+            if (open.size() > ws.peakOpen) ws.peakOpen = open.size();
         }
 
-        return null; // no path
+        return -1; // no path
     }
 
-    // compute heuristic: Manhattan * minCost
-    private static int heuristic(int r, int c, int gr, int gc, int minCost) {
-        return (Math.abs(r - gr) + Math.abs(c - gc)) * minCost;
+    private static final int[] DR = { -1, 1, 0, 0 };
+    private static final int[] DC = { 0, 0, -1, 1 };
+
+    // order by f, ties broken toward the goal (smaller h)
+    private static long key(int f, int h) {
+        return ((long) f << 32) | h;
     }
 
-    // parse cell string to movement cost (entering that cell)
-    // S and G -> treat as 0 cost to enter; numbers parsed; X -> impassable -> return -1
-    private static int cellCost(String s) {
-        if (s == null) return -1;
-        s = s.trim();
-        if (s.equals("X")) return -1;
-        if (s.equals("S") || s.equals("G")) return 0;
-        try {
-            return Math.max(0, Integer.parseInt(s));
-        } catch (Exception e) {
-            return -1;
-        }
+    // compute heuristic: (Manhattan - 1) * minCost
+    // the last step enters G, which costs 0, so Manhattan * minCost would overestimate by one step
+    static int heuristic(int r, int c, int gr, int gc, int minCost) {
+        int d = Math.abs(r - gr) + Math.abs(c - gc);
+        return d == 0 ? 0 : (d - 1) * minCost;
     }
 
     // utility to compute total cost of path (sum of entering costs excluding start cell)
     public static int pathCost(String[][] grid, List<Point> path) {
-        if (path == null || path.isEmpty()) return 0;
-        int total = 0;
-        // skip first point (start), sum cost of each subsequent cell
-        for (int i = 1; i < path.size(); i++) {
-            Point p = path.get(i);
-            total += cellCost(grid[p.x][p.y]);
-        }
-        return total;
+        return pathCost(MazeGrid.fromStrings(grid), path);
+    }
+
+    public static int pathCost(MazeGrid grid, List<Point> path) {
+        return grid.pathCost(path);
     }
 }
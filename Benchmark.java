@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+// micro-benchmark harness, no dependencies: warmup, then timed iterations per (benchmark, map)
+// reports ops/s (mean +- stddev over iterations) and bytes allocated per op on the calling thread
+//
+//   java Benchmark [-b parse,astar,...] [-s 250,1000] [-w warmupMs] [-i iterations] [-t iterationMs] [maps | dirs]
+//
+// maps default to the m*.txt files in the working directory; -s adds n x n MazeGenerator grids
+// GA runs with a fixed seed on the calling thread so its allocations are counted too
+public class Benchmark {
+
+    private static final String[] BENCHMARKS = {"parse", "table", "astar", "dijkstra", "genetic"};
+
+    private static volatile long sink; // keeps results alive so the JIT cannot drop the work
+
+    public static void main(String[] args) throws Exception {
+        List<String> benches = new ArrayList<>(Arrays.asList(BENCHMARKS));
+        List<Integer> sizes = new ArrayList<>();
+        long warmupMs = 1000, iterMs = 1000;
+        int iterations = 5;
+        List<String> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-b": benches = Arrays.asList(args[++i].split(",")); break;
+                case "-s": for (String s : args[++i].split(",")) sizes.add(Integer.parseInt(s)); break;
+                case "-w": warmupMs = Long.parseLong(args[++i]); break;
+                case "-i": iterations = Integer.parseInt(args[++i]); break;
+                case "-t": iterMs = Long.parseLong(args[++i]); break;
+                default: inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty()) inputs.add(".");
+
+        // ===================== INPUTS =====================
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (String in : inputs) {
+            Path p = Paths.get(in);
+            if (Files.isDirectory(p)) {
+                try (DirectoryStream<Path> ds = Files.newDirectoryStream(p, "m*.txt")) {
+                    List<Path> found = new ArrayList<>();
+                    ds.forEach(found::add);
+                    found.sort(Comparator.comparingLong(Benchmark::fileSize));
+                    for (Path f : found) files.put(f.getFileName().toString(), f);
+                }
+            } else {
+                files.put(p.getFileName().toString(), p);
+            }
+        }
+
+        Map<String, MazeGrid> grids = new LinkedHashMap<>();
+        for (Map.Entry<String, Path> e : files.entrySet()) grids.put(e.getKey(), MazeParser.parse(e.getValue()));
+        for (int n : sizes) {
+            MazeGenerator.Config gen = new MazeGenerator.Config();
+            gen.rows = gen.cols = n;
+            gen.seed = 42;
+            grids.put("synthetic " + n + "x" + n, MazeGenerator.generate(gen));
+        }
+
+        System.out.printf("%-10s %-22s %14s %12s %16s%n", "benchmark", "map", "ops/s", "+- stddev", "alloc B/op");
+
+        // ===================== RUN =====================
+        for (String b : benches) {
+            for (Map.Entry<String, MazeGrid> e : grids.entrySet()) {
+                Path file = files.get(e.getKey());
+                if (b.equals("parse") && file == null) continue; // synthetic grids have no text form
+                Callable<Object> op = operation(b, file, e.getValue());
+                if (op == null) throw new IllegalArgumentException("unknown benchmark '" + b + "'");
+                report(b, e.getKey(), measure(op, warmupMs, iterations, iterMs));
+            }
+        }
+    }
+
+    private static long fileSize(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static Callable<Object> operation(String bench, Path file, MazeGrid grid) {
+        switch (bench) {
+            case "parse":    return () -> MazeParser.parse(file);
+            case "table":    return grid::toStrings;
+            case "astar":    return () -> AStar.findPath(grid);
+            case "dijkstra": return () -> Dijkstra.findPath(grid);
+            case "genetic":  return () -> {
+                GeneticSolver.Config cfg = new GeneticSolver.Config();
+                cfg.seed = 42;
+                cfg.generations = 20;
+                cfg.stallGenerations = 0;
+                cfg.pool = null;
+                return GeneticSolver.solve(grid, cfg);
+            };
+            default: return null;
+        }
+    }
+
+    // ===================== MEASURE =====================
+    // result: {ops/s mean, ops/s stddev, bytes per op}
+    private static double[] measure(Callable<Object> op, long warmupMs, int iterations, long iterMs) throws Exception {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+
+        run(op, warmupMs);
+
+        double[] rate = new double[iterations];
+        long ops = 0, bytes = 0;
+        for (int k = 0; k < iterations; k++) {
+            long a0 = mx.getThreadAllocatedBytes(tid);
+            long t0 = System.nanoTime();
+            long n = run(op, iterMs);
+            long t1 = System.nanoTime();
+            bytes += mx.getThreadAllocatedBytes(tid) - a0;
+            ops += n;
+            rate[k] = n / ((t1 - t0) / 1e9);
+        }
+
+        double mean = 0, var = 0;
+        for (double r : rate) mean += r;
+        mean /= iterations;
+        for (double r : rate) var += (r - mean) * (r - mean);
+        double sd = iterations > 1 ? Math.sqrt(var / (iterations - 1)) : 0;
+        return new double[]{mean, sd, (double) bytes / ops};
+    }
+
+    // call op until ms have passed (at least once), returns the number of calls
+    private static long run(Callable<Object> op, long ms) throws Exception {
+        long end = System.nanoTime() + ms * 1_000_000L;
+        long n = 0;
+        do {
+            sink += System.identityHashCode(op.call());
+            n++;
+        } while (System.nanoTime() - end < 0);
+        return n;
+    }
+
+    private static void report(String bench, String map, double[] r) {
+        System.out.printf(Locale.ROOT, "%-10s %-22s %14.2f %12.2f %16.0f%n", bench, map, r[0], r[1], r[2]);
+    }
+}
@@ -0,0 +1,184 @@
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+
+// bidirectional A* / Dijkstra on the compiled grid
+//
+// costs are charged on the cell being entered, so the graph is directed:
+//   forward  u -> v costs cost(v)
+//   backward v -> u (searching from G) costs cost(v), the cell that the forward move enters
+// gB(u) is therefore the cost of the rest of the path after u, and gF(u) + gB(u) is the
+// cost of an S..G path through u (u counted once, on the forward side)
+//
+// both directions use the averaged potential p(u) = (hF(u) - hB(u)) / 2 (kept doubled to stay
+// in ints): forward keys are 2 gF + p, backward keys 2 gB - p. With consistent hF / hB the
+// reduced costs are non-negative in both directions and one rule stops both modes:
+//   stop when topF + topB >= 2 * best
+// with hF = hB = 0 this is the usual bidirectional Dijkstra bound
+// G is never queued forward and S never backward: each is the other side's root, so reaching
+// it only records a meeting (this also keeps the zero enter-cost of S / G out of the heuristics)
+public class BidirectionalSearch {
+
+    private static final ThreadLocal<SearchWorkspace> REVERSE =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
+    private static final int[] DR = { -1, 1, 0, 0 };
+    private static final int[] DC = { 0, 0, -1, 1 };
+
+    public static SolveResult solve(MazeGrid grid, boolean useHeuristic) {
+        return solve(grid, useHeuristic, SolveContext.DEFAULT);
+    }
+
+    public static SolveResult solve(MazeGrid grid, boolean useHeuristic, CancellationToken cancel) {
+        return solve(grid, useHeuristic, new SolveContext(SolverMetrics.NONE, cancel));
+    }
+
+    // both directions are reported as one search: expansions and pushes added up, peak open =
+    // the two frontiers' peaks together
+    public static SolveResult solve(MazeGrid grid, boolean useHeuristic, SolveContext ctx) {
+        String name = useHeuristic ? "Bi-A*" : "Bi-Dijkstra";
+        SolverMetrics metrics = ctx.metrics;
+        long t0 = System.nanoTime();
+        if (grid.start() < 0 || grid.goal() < 0)
+            return new SolveResult(name, null, -1, 0, System.nanoTime() - t0);
+
+        SearchWorkspace fwd = SearchWorkspace.forCurrentThread();
+        SearchWorkspace bwd = REVERSE.get();
+        long t1 = System.nanoTime();
+        int cost = search(grid, grid.start(), grid.goal(), fwd, bwd, useHeuristic, ctx.cancel, ctx.observer);
+        long t2 = System.nanoTime();
+        List<Point> path = cost < 0 ? null : AStar.toPoints(grid, fwd);
+        long t3 = System.nanoTime();
+
+        int expanded = fwd.expanded() + bwd.expanded();
+        metrics.search(expanded, fwd.pushes() + bwd.pushes(), 0, fwd.peakOpen() + bwd.peakOpen());
+        metrics.phase(SolverMetrics.Phase.SETUP, t1 - t0);
+        metrics.phase(SolverMetrics.Phase.SEARCH, t2 - t1);
+        metrics.phase(SolverMetrics.Phase.RECONSTRUCT, t3 - t2);
+        return new SolveResult(name, path, cost, expanded, t3 - t0);
+    }
+
+    // returns the path cost (path left in fwd) or -1
+    public static int search(MazeGrid grid, int start, int goal,
+                             SearchWorkspace fwd, SearchWorkspace bwd, boolean useHeuristic) {
+        return search(grid, start, goal, fwd, bwd, useHeuristic, CancellationToken.NONE);
+    }
+
+    public static int search(MazeGrid grid, int start, int goal, SearchWorkspace fwd, SearchWorkspace bwd,
+                             boolean useHeuristic, CancellationToken cancel) {
+        return search(grid, start, goal, fwd, bwd, useHeuristic, cancel, SearchObserver.NONE);
+    }
+
+    // same, and at each poll hands observer a snapshot if it wants one: both directions'
+    // closed cells and frontiers, the path is the branch of the cell being expanded
+    // (S .. cell forward, G .. cell backward)
+    public static int search(MazeGrid grid, int start, int goal, SearchWorkspace fwd, SearchWorkspace bwd,
+                             boolean useHeuristic, CancellationToken cancel, SearchObserver observer) {
+        int n = grid.size();
+        fwd.begin(n);
+        bwd.begin(n);
+        if (start == goal) {
+            fwd.set(start, 0, -1);
+            fwd.tracePath(start, start);
+            return 0;
+        }
+
+        int mc = useHeuristic ? grid.minCost() : 0;
+        int cols = grid.cols();
+        int sr = grid.row(start), sc = grid.col(start);
+        int gr = grid.row(goal), gc = grid.col(goal);
+
+        int ps = potential(sr, sc, sr, sc, gr, gc, mc);
+        int pg = potential(gr, gc, sr, sc, gr, gc, mc);
+        fwd.set(start, 0, -1);
+        fwd.open.offer(start, key(ps, 0));
+        bwd.set(goal, 0, -1);
+        bwd.open.offer(goal, key(-pg, 0));
+        fwd.pushes = bwd.pushes = 1;
+        fwd.peakOpen = bwd.peakOpen = 1;
+
+        int best = SearchWorkspace.INF;
+        int meet = -1;
+        long[] closedBits = observer == SearchObserver.NONE ? null : new long[(n + 63) >>> 6];
+
+        while (!fwd.open.isEmpty() && !bwd.open.isEmpty()) {
+            long topF = fwd.open.minKey() >> 32;
+            long topB = bwd.open.minKey() >> 32;
+            if (best != SearchWorkspace.INF && topF + topB >= 2L * best) break;
+
+            // expand the smaller frontier
+            boolean forward = fwd.open.size() <= bwd.open.size();
+            SearchWorkspace ws = forward ? fwd : bwd;
+            SearchWorkspace other = forward ? bwd : fwd;
+            int otherRoot = forward ? goal : start;
+
+            int cur = ws.open.poll();
+            ws.close(cur);
+            if (closedBits != null) closedBits[cur >>> 6] |= 1L << cur;
+            if ((++ws.expanded & CancellationToken.POLL_MASK) == 0) {
+                cancel.check();
+                if (closedBits != null && observer.wantsSnapshot())
+                    observer.publish(new SearchObserver.Snapshot(closedBits.clone(), frontier(fwd, bwd),
+                            SearchObserver.Snapshot.trace(ws.parent, cur), ws.g(cur),
+                            fwd.expanded + bwd.expanded, -1));
+            }
+
+            int r = cur / cols, c = cur - r * cols;
+            int g = ws.g(cur);
+            // backward moves pay for the cell being left (entered in the forward direction)
+            int leaveCost = forward ? 0 : grid.cost(cur);
+
+            for (int d = 0; d < 4; d++) {
+                int nr = r + DR[d], nc = c + DC[d];
+                if (nr < 0 || nr >= grid.rows() || nc < 0 || nc >= cols) continue;
+                int ni = nr * cols + nc;
+                if (ws.isClosed(ni)) continue;
+
+                int enter = grid.cost(ni);
+                if (enter < 0) continue; // wall
+
+                int ng = g + (forward ? enter : leaveCost);
+                if (ng < ws.g(ni)) {
+                    ws.set(ni, ng, cur);
+                    if (ni != otherRoot) {
+                        int p = potential(nr, nc, sr, sc, gr, gc, mc);
+                        int h = AStar.heuristic(nr, nc, forward ? gr : sr, forward ? gc : sc, mc);
+                        ws.open.offer(ni, key(2 * ng + (forward ? p : -p), h));
+                        ws.pushes++;
+                    }
+
+                    int og = other.g(ni);
+                    if (og != SearchWorkspace.INF && ng + og < best) {
+                        best = ng + og;
+                        meet = ni;
+                    }
+                }
+            }
+            if (ws.open.size() > ws.peakOpen) ws.peakOpen = ws.open.size();
+        }
+
+        if (meet < 0) return -1;
+
+        // S..meet from the forward tree, then meet..G along the backward parents
+        fwd.tracePath(start, meet);
+        for (int c = bwd.parent[meet]; c != -1; c = bwd.parent[c]) fwd.appendPath(c);
+        return best;
+    }
+
+    private static int[] frontier(SearchWorkspace fwd, SearchWorkspace bwd) {
+        int[] f = fwd.open.toArray(), b = bwd.open.toArray();
+        int[] both = Arrays.copyOf(f, f.length + b.length);
+        System.arraycopy(b, 0, both, f.length, b.length);
+        return both;
+    }
+
+    // doubled forward potential hF - hB (0 in Dijkstra mode)
+    private static int potential(int r, int c, int sr, int sc, int gr, int gc, int mc) {
+        return AStar.heuristic(r, c, gr, gc, mc) - AStar.heuristic(r, c, sr, sc, mc);
+    }
+
+    // primary key may be negative; h breaks ties toward the target
+    private static long key(int k, int h) {
+        return ((long) k << 32) | h;
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.Arrays;
+
+// Dial's bucket queue for Dijkstra with small integer edge weights
+// keys still in the queue always lie in [cur, cur + maxWeight], so maxWeight + 1
+// circular buckets are enough; stale entries are skipped by the caller (lazy deletion)
+public class BucketQueue {
+
+    private final int[][] buckets;
+    private final int[] sizes;
+    private final int span;
+    private int cur;   // smallest key that may still be queued
+    private int count;
+
+    public BucketQueue(int maxWeight) {
+        span = maxWeight + 1;
+        buckets = new int[span][];
+        sizes = new int[span];
+        for (int i = 0; i < span; i++) buckets[i] = new int[8];
+    }
+
+    public void clear() {
+        Arrays.fill(sizes, 0);
+        count = 0;
+        cur = 0;
+    }
+
+    public boolean isEmpty() { return count == 0; }
+    public int size() { return count; }
+
+    // key must be >= the key of the last polled item
+    public void push(int item, int key) {
+        int b = key % span;
+        int[] bucket = buckets[b];
+        if (sizes[b] == bucket.length) buckets[b] = bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        bucket[sizes[b]++] = item;
+        count++;
+    }
+
+    // queued items, stale entries included (copy)
+    public int[] toArray() {
+        int[] items = new int[count];
+        int k = 0;
+        for (int b = 0; b < span; b++) {
+            System.arraycopy(buckets[b], 0, items, k, sizes[b]);
+            k += sizes[b];
+        }
+        return items;
+    }
+
+    // key of the item returned by the last poll()
+    public int currentKey() { return cur; }
+
+    public int poll() {
+        int b = cur % span;
+        while (sizes[b] == 0) {
+            cur++;
+            if (++b == span) b = 0;
+        }
+        count--;
+        return buckets[b][--sizes[b]];
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.concurrent.CancellationException;
+
+// cooperative cancellation for long solves: the caller cancels (or the deadline passes),
+// the solver notices on its next poll and throws CancellationException
+// (GeneticSolver instead stops and returns the best path found so far)
+public final class CancellationToken {
+
+    public static final CancellationToken NONE = new CancellationToken(Long.MAX_VALUE);
+
+    // search loops poll every POLL_MASK + 1 expansions, a volatile read is too much per node
+    static final int POLL_MASK = 1023;
+
+    private final long deadline; // System.nanoTime() value, Long.MAX_VALUE = no timeout
+    private volatile boolean cancelled;
+
+    public CancellationToken() {
+        this(Long.MAX_VALUE);
+    }
+
+    private CancellationToken(long deadline) {
+        this.deadline = deadline;
+    }
+
+    // millis <= 0 -> no timeout
+    public static CancellationToken withTimeout(long millis) {
+        return millis <= 0 ? new CancellationToken() : new CancellationToken(System.nanoTime() + millis * 1_000_000L);
+    }
+
+    public void cancel() {
+        if (this != NONE) cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || timedOut();
+    }
+
+    public boolean timedOut() {
+        return deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0;
+    }
+
+    public void check() {
+        if (cancelled) throw new CancellationException("cancelled");
+        if (timedOut()) throw new CancellationException("timed out");
+    }
+}
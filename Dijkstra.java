@@ -4,17 +4,51 @@ import java.util.List;
 public class Dijkstra {
     
     public static List<Point> findPath(String[][] mapData) {
-        DijkstraSolver solver = new DijkstraSolver(mapData);
-        solver.solveShortestPath();
-        return solver.reconstructPath();
+        return findPath(MazeGrid.fromStrings(mapData));
+    }
+
+    public static List<Point> findPath(MazeGrid grid) {
+        return solve(grid).path;
+    }
+
+    // one search: cost comes from the solver, not from a second run
+    public static SolveResult solve(MazeGrid grid) {
+        return solve(grid, SolveContext.DEFAULT);
+    }
+
+    public static SolveResult solve(MazeGrid grid, SolveContext ctx) {
+        SolverMetrics metrics = ctx.metrics;
+        long t0 = System.nanoTime();
+        DijkstraSolver solver = new DijkstraSolver(grid);
+        solver.setCancellation(ctx.cancel);
+        solver.setObserver(ctx.observer);
+        long t1 = System.nanoTime();
+        int cost = solver.solveShortestPath();
+        long t2 = System.nanoTime();
+        List<Point> path = solver.reconstructPath();
+        long t3 = System.nanoTime();
+
+        solver.reportTo(metrics);
+        metrics.phase(SolverMetrics.Phase.SETUP, t1 - t0);
+        metrics.phase(SolverMetrics.Phase.SEARCH, t2 - t1);
+        metrics.phase(SolverMetrics.Phase.RECONSTRUCT, t3 - t2);
+        return new SolveResult("Dijkstra", path, cost, solver.getExpanded(), t3 - t0);
     }
     
+    // ค้นหาพร้อมกันจาก S และจาก G (see BidirectionalSearch)
+    public static SolveResult solveBidirectional(MazeGrid grid) {
+        return solveBidirectional(grid, SolveContext.DEFAULT);
+    }
+
+    public static SolveResult solveBidirectional(MazeGrid grid, SolveContext ctx) {
+        return BidirectionalSearch.solve(grid, false, ctx);
+    }
+
     public static int pathCost(String[][] mapData, List<Point> path) {
-        if (path == null || path.isEmpty()) return 0;
-        
-        DijkstraSolver solver = new DijkstraSolver(mapData);
-        int finalCost = solver.solveShortestPath();
-        
-        return finalCost != DijkstraSolver.INFINITY ? finalCost : 0;
+        return pathCost(MazeGrid.fromStrings(mapData), path);
+    }
+
+    public static int pathCost(MazeGrid grid, List<Point> path) {
+        return grid.pathCost(path);
     }
 }
\ No newline at end of file
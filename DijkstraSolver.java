@@ -1,151 +1,293 @@
 import java.util.Arrays;
-import java.util.PriorityQueue;
-import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.awt.Point; // ใช้ java.awt.Point
 
 public class DijkstraSolver {
 
-    // Inner Class สำหรับ PriorityQueue
-    private class PointData {
-        int x, y;
-        int cost;
-        public PointData(int x, int y, int cost) {
-            this.x = x;
-            this.y = y;
-            this.cost = cost;
-        }
-    }
-
     public static final int INFINITY = 999999999; 
 
-    private String[][] maze; 
-    private int[][] dist;     
-    private Point[][] predecessor; // ใช้ java.awt.Point
+    // ถ้า cost สูงสุดของ cell ไม่เกินค่านี้ ใช้ bucket queue (Dial) แทน binary heap
+    public static final int DIAL_MAX_WEIGHT = 255;
+
+    private MazeGrid maze; 
+    private int[] dist;       // row-major เหมือน MazeGrid
+    private int[] predecessor; // index ของ cell ก่อนหน้า, -1 = ไม่มี
     private int rows;
     private int cols;
     
     public int startX, startY; 
     public int goalX, goalY;
 
+    private int expanded; // จำนวน cell ที่ถูก settle ในการค้นหาครั้งล่าสุด
+    private int pushes, stalePops, peakOpen; // สถิติ queue ของการค้นหาครั้งล่าสุด
+    private CancellationToken cancel = CancellationToken.NONE;
+    private SearchObserver observer = SearchObserver.NONE;
+    private long[] closedBits; // cell ที่ settle แล้ว, เก็บเฉพาะตอนมี observer
+
     public DijkstraSolver(String[][] mazeArray) {
-        this.maze = mazeArray;
-        this.rows = mazeArray.length;
-        this.cols = mazeArray[0].length; 
+        this(MazeGrid.fromStrings(mazeArray));
+    }
+
+    public DijkstraSolver(MazeGrid maze) {
+        this.maze = maze;
+        this.rows = maze.rows();
+        this.cols = maze.cols(); 
         
-        this.dist = new int[rows][cols];
-        this.predecessor = new Point[rows][cols]; 
+        this.dist = new int[rows * cols];
+        this.predecessor = new int[rows * cols]; 
 
-        for (int[] row : dist) {
-            Arrays.fill(row, INFINITY);
-        }
+        Arrays.fill(dist, INFINITY);
+        Arrays.fill(predecessor, -1);
 
         findStartAndGoal();
     }
 
     private void findStartAndGoal() {
         startX = -1; goalX = -1; 
-        for (int x = 0; x < rows; x++) {
-            for (int y = 0; y < cols; y++) {
-                if (maze[x][y].equals("S")) {
-                    startX = x;
-                    startY = y;
-                } else if (maze[x][y].equals("G") || maze[x][y].equals("E")) { // รองรับ G และ E
-                    goalX = x;
-                    goalY = y;
-                }
-            }
+        if (maze.start() >= 0) {
+            startX = maze.row(maze.start());
+            startY = maze.col(maze.start());
+        }
+        if (maze.goal() >= 0) { // รองรับ G และ E (MazeGrid แปลงให้แล้ว)
+            goalX = maze.row(maze.goal());
+            goalY = maze.col(maze.goal());
         }
     }
 
-    private int getWeight(int x, int y) {
-        String weight = maze[x][y];
-        
-        if (weight.equals("S") || weight.equals("G") || weight.equals("E")) {
-            return 0; 
+    // ตรวจทุกๆ ~1000 cell ที่ settle, ถูกยกเลิก -> CancellationException
+    public void setCancellation(CancellationToken cancel) {
+        this.cancel = cancel;
+    }
+
+    // ส่ง snapshot (closed / frontier / path ถึง cell ปัจจุบัน) ตอนตรวจ cancellation ถ้า observer ต้องการ
+    public void setObserver(SearchObserver observer) {
+        this.observer = observer;
+    }
+
+    private void observe(int current, int[] frontier) {
+        observer.publish(new SearchObserver.Snapshot(closedBits.clone(), frontier,
+                SearchObserver.Snapshot.trace(predecessor, current), dist[current], expanded, -1));
+    }
+
+    // เลือก queue อัตโนมัติจาก maxCost ที่ได้ตอนโหลด map
+    public int solveShortestPath() {
+        if (maze.maxCost() <= DIAL_MAX_WEIGHT) {
+            return solveWithBuckets();
         }
-        
-        try {
-            return Integer.parseInt(weight);
-        } catch (NumberFormatException e) {
-            // ถ้าไม่ใช่ตัวเลข (เช่น '.' หรือ 'X' หรือ '#') ให้ถือว่า Cost = 1 (ยกเว้นผนัง)
-            if (weight.equals("X") || weight.equals("#")) return INFINITY;
-            return 1; 
+        return solveWithHeap();
+    }
+
+    // Dial's algorithm: O(V + cost * maxW), ไม่มี object ต่อ relaxation
+    public int solveWithBuckets() {
+        if (goalX == -1 || startX == -1) {
+            return INFINITY;
         }
+
+        BucketQueue queue = new BucketQueue(maze.maxCost());
+        closedBits = observer == SearchObserver.NONE ? null : new long[(rows * cols + 63) >>> 6];
+        expanded = 0;
+        stalePops = 0;
+
+        int start = maze.start();
+        int goal = maze.goal();
+        dist[start] = 0;
+        queue.push(start, 0);
+        pushes = 1;
+        peakOpen = 1;
+
+        while (!queue.isEmpty()) {
+            if (queue.size() > peakOpen) peakOpen = queue.size();
+            int current = queue.poll();
+            int currentCost = queue.currentKey();
+
+            if (currentCost > dist[current]) {
+                stalePops++;
+                continue; // entry เก่า
+            }
+
+            if (current == goal) {
+                break;
+            }
+            if (closedBits != null) closedBits[current >>> 6] |= 1L << current;
+            if ((++expanded & CancellationToken.POLL_MASK) == 0) {
+                cancel.check();
+                if (closedBits != null && observer.wantsSnapshot()) observe(current, queue.toArray());
+            }
+
+            int x = current / cols;
+            int y = current % cols;
+            for (int d = 0; d < 4; d++) {
+                int nextX = x + DX[d];
+                int nextY = y + DY[d];
+
+                if (nextX < 0 || nextX >= rows || nextY < 0 || nextY >= cols) continue;
+                int next = nextX * cols + nextY;
+                int nextWeight = maze.cost(next);
+                if (nextWeight < 0) continue;
+
+                int newCost = currentCost + nextWeight;
+                if (newCost < dist[next]) {
+                    dist[next] = newCost;
+                    predecessor[next] = current;
+                    queue.push(next, newCost);
+                    pushes++;
+                }
+            }
+        }
+
+        return dist[goal];
     }
 
-    public int solveShortestPath() {
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
+
+    // indexed heap with decrease-key: no object per relaxation, no stale entries
+    public int solveWithHeap() {
         if (goalX == -1 || startX == -1) {
             return INFINITY;
         }
-        
-        PriorityQueue<PointData> pq = new PriorityQueue<>(Comparator.comparingInt(cell -> cell.cost)); 
 
-        dist[startX][startY] = 0;
-        pq.add(new PointData(startX, startY, 0));
+        IndexedMinHeap pq = new IndexedMinHeap();
+        pq.ensureCapacity(rows * cols);
+        closedBits = observer == SearchObserver.NONE ? null : new long[(rows * cols + 63) >>> 6];
+        expanded = 0;
+        stalePops = 0;
+
+        int start = maze.start();
+        int goal = maze.goal();
+        dist[start] = 0;
+        pq.offer(start, 0);
+        pushes = 1;
+        peakOpen = 1;
 
-        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
-        
         while (!pq.isEmpty()) {
-            PointData current = pq.poll();
-            int x = current.x;
-            int y = current.y;
-            int currentCost = current.cost;
-            
-            if (currentCost > dist[x][y]) {
-                continue;
-            }
-            
-            if (x == goalX && y == goalY) {
+            if (pq.size() > peakOpen) peakOpen = pq.size();
+            int current = pq.poll();
+            int currentCost = dist[current];
+
+            if (current == goal) {
                 break;
             }
+            if (closedBits != null) closedBits[current >>> 6] |= 1L << current;
+            if ((++expanded & CancellationToken.POLL_MASK) == 0) {
+                cancel.check();
+                if (closedBits != null && observer.wantsSnapshot()) observe(current, pq.toArray());
+            }
+
+            int x = current / cols;
+            int y = current % cols;
+            for (int d = 0; d < 4; d++) {
+                int nextX = x + DX[d];
+                int nextY = y + DY[d];
+
+                // ตรวจสอบขอบเขตและผนัง (cost < 0)
+                if (nextX < 0 || nextX >= rows || nextY < 0 || nextY >= cols) continue;
+                int next = nextX * cols + nextY;
+                int nextWeight = maze.cost(next);
+                if (nextWeight < 0) continue;
 
-            for (int[] dir : directions) {
-                int nextX = x + dir[0]; 
-                int nextY = y + dir[1]; 
-                
-                // ตรวจสอบขอบเขตและผนัง ('X' หรือ '#')
-                if (nextX >= 0 && nextX < rows && nextY >= 0 && nextY < cols && 
-                    !maze[nextX][nextY].equals("X") && !maze[nextX][nextY].equals("#")) { 
-                    
-                    int nextWeight = getWeight(nextX, nextY);
-                    int newCost = currentCost + nextWeight;
-                    
-                    if (newCost < dist[nextX][nextY]) {
-                        dist[nextX][nextY] = newCost;
-                        predecessor[nextX][nextY] = new Point(x, y); // ใช้ java.awt.Point
-                        pq.add(new PointData(nextX, nextY, newCost));
-                    }
+                int newCost = currentCost + nextWeight;
+                if (newCost < dist[next]) {
+                    dist[next] = newCost;
+                    predecessor[next] = current;
+                    pq.offer(next, newCost);
+                    pushes++;
                 }
             }
         }
-        
-        return dist[goalX][goalY];
+
+        return dist[goal];
     }
-    
+
+    // Dijkstra จาก source ภายในกรอบ [r0..r1] x [c0..c1] เท่านั้น (ใช้กับ cluster / window เล็กๆ)
+    // ws ใช้ index ภายในกรอบ (r - r0) * w + (c - c0) -> ขนาด ws เท่ากรอบ ไม่ใช่ทั้ง grid
+    // target = -1 -> settle ทุก cell ในกรอบ, อ่านระยะได้จาก ws.g(windowIndex(...))
+    // คืนค่า cost ถึง target (path ใน ws เป็น cell ของ grid) หรือ -1 ถ้าไปไม่ถึง
+    static int searchWindow(MazeGrid grid, int source, int target,
+                            int r0, int c0, int r1, int c1, SearchWorkspace ws) {
+        int cols = grid.cols();
+        int w = c1 - c0 + 1;
+        ws.begin(w * (r1 - r0 + 1));
+        int src = windowIndex(grid, source, r0, c0, w);
+        int dst = target < 0 ? -1 : windowIndex(grid, target, r0, c0, w);
+        ws.set(src, 0, -1);
+        ws.open.offer(src, 0);
+
+        while (!ws.open.isEmpty()) {
+            int current = ws.open.poll();
+            if (current == dst) {
+                ws.tracePath(src, dst);
+                // index ในกรอบ -> cell ของ grid
+                for (int k = 0; k < ws.pathLength; k++) {
+                    int l = ws.path[k];
+                    ws.path[k] = (r0 + l / w) * cols + c0 + l % w;
+                }
+                return ws.g(dst);
+            }
+            ws.close(current);
+            ws.expanded++;
+
+            int x = current / w;
+            int y = current % w;
+            int currentCost = ws.g(current);
+            for (int d = 0; d < 4; d++) {
+                int nextX = x + DX[d];
+                int nextY = y + DY[d];
+                if (nextX < 0 || nextX > r1 - r0 || nextY < 0 || nextY >= w) continue;
+
+                int next = nextX * w + nextY;
+                if (ws.isClosed(next)) continue;
+                int nextWeight = grid.cost((r0 + nextX) * cols + c0 + nextY);
+                if (nextWeight < 0) continue;
+
+                int newCost = currentCost + nextWeight;
+                if (newCost < ws.g(next)) {
+                    ws.set(next, newCost, current);
+                    ws.open.offer(next, newCost);
+                }
+            }
+        }
+        return -1;
+    }
+
+    // index ของ cell (ต้องอยู่ในกรอบ) ใน ws ของ searchWindow, w = ความกว้างกรอบ
+    static int windowIndex(MazeGrid grid, int cell, int r0, int c0, int w) {
+        return (grid.row(cell) - r0) * w + grid.col(cell) - c0;
+    }
+
+    public int getExpanded() {
+        return expanded;
+    }
+
+    // สถิติของการค้นหาครั้งล่าสุด
+    public void reportTo(SolverMetrics metrics) {
+        metrics.search(expanded, pushes, stalePops, peakOpen);
+    }
+
     // คืนค่าเป็น List<Point> (java.awt.Point)
     public List<Point> reconstructPath() {
         LinkedList<Point> path = new LinkedList<>(); 
         
-        if (goalX == -1 || goalY == -1 || dist[goalX][goalY] == INFINITY) {
+        if (goalX == -1 || startX == -1 || dist[maze.goal()] == INFINITY) {
             return path;
         }
 
-        Point current = new Point(goalX, goalY); 
+        int current = maze.goal(); 
+        int start = maze.start();
         
         int maxSteps = rows * cols * 2; 
         int steps = 0;
         
         // เดินย้อนกลับจาก Goal ไป Start
-        while (current != null && (current.x != startX || current.y != startY) && steps < maxSteps) {
-            path.addFirst(current);
-            current = predecessor[current.x][current.y]; 
+        while (current != -1 && current != start && steps < maxSteps) {
+            path.addFirst(maze.point(current));
+            current = predecessor[current]; 
             steps++;
         }
         
-        if (current != null && current.x == startX && current.y == startY) {
-             path.addFirst(current);
+        if (current == start) {
+             path.addFirst(maze.point(current));
         }
         
         return path; 
@@ -1,271 +1,840 @@
 import java.awt.Point;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class GeneticSolver {
 
-    // ===================== CELL COST =====================
-    private static int weight(String v) {
-        if (v == null) return -1;
-        if (v.equals("#") || v.equals("X")) return -1;
-        if (v.equals("S") || v.equals("G") || v.equals("E")) return 0;
-        try {
-            return Integer.parseInt(v);
-        } catch (Exception e) {
-            return 1;
-        }
-    }
-
     // ===================== PUBLIC API =====================
     public static List<Point> findPath(String[][] grid) {
+        return findPath(MazeGrid.fromStrings(grid));
+    }
 
-        int n = grid.length;
-        int m = grid[0].length;
+    public static List<Point> findPath(MazeGrid grid) {
+        return solve(grid).path;
+    }
 
-        int sx = -1, sy = -1, gx = -1, gy = -1;
+    public static Result solve(MazeGrid grid) {
+        return solve(grid, new Config());
+    }
 
-        for (int i = 0; i < n; i++)
-            for (int j = 0; j < m; j++) {
-                if (grid[i][j].equals("S")) { sx = i; sy = j; }
-                if (grid[i][j].equals("G") || grid[i][j].equals("E")) {
-                    gx = i; gy = j;
-                }
-            }
+    // why the GA loop ended
+    public enum StopReason {
+        GENERATIONS,   // ran cfg.generations
+        STALLED,       // best cost unchanged for cfg.stallGenerations
+        TARGET,        // best cost <= cfg.targetCost
+        OPTIMAL,       // best cost equals the exact bound
+        TIME_BUDGET,   // cfg.timeBudgetMillis elapsed (or cfg.cancel timed out)
+        CANCELLED,     // cfg.cancel was cancelled, best path so far is returned
+        NO_PATH        // exact bound run found no path, GA skipped
+    }
 
-        if (sx == -1 || gx == -1) return Collections.emptyList();
+    // SolveResult plus how the run ended
+    public static class Result extends SolveResult {
+        public final int generations;
+        public final StopReason stopReason;
 
-        // ============ PURE GA PARAMETERS ============
-        final int POP = 400;
-        final int GEN = 3000;
-        final int LEN = n * m;
-        final int ELITE = 10;
-        final double MUT = 0.07;
-        final double CROSS = 0.9;
-        final int TOURN = 5;
+        Result(List<Point> path, int cost, int expansions, long elapsedNanos, int generations, StopReason stopReason) {
+            super("Genetic", path, cost, expansions, elapsedNanos);
+            this.generations = generations;
+            this.stopReason = stopReason;
+        }
+    }
+
+    // ===================== CONFIG =====================
+    public static class Config {
+        public int population = 400;
+        public int generations = 3000;
+        public int elite = 10;
+        public double mutation = 0.07;
+        public double crossover = 0.9;
+        public int tournament = 5;
+
+        // same seed -> same result, whatever the number of worker threads
+        // (island mode excepted unless pool == null: migration timing depends on thread scheduling)
+        public long seed = System.nanoTime();
+        public ForkJoinPool pool = ForkJoinPool.commonPool(); // null: everything runs on the caller
+
+        // island model: islands > 0 splits the population into that many subpopulations,
+        // each evolved by one task (pool == null: in turns, one generation each, on the caller);
+        // every migrationInterval generations each island sends copies of its best `migrants`
+        // chromosomes to the next island in a ring
+        public int islands = 0;
+        public int migrationInterval = 50;
+        public int migrants = 2;
+        // optional per-island settings, island i uses [i % length]
+        public double[] islandMutation;
+        public double[] islandCrossover;
+
+        // stopping rules, checked after every generation (0 / -1 = off)
+        // stall only counts once some chromosome has reached G
+        public int stallGenerations = 500;
+        public int targetCost = -1;
+        public long timeBudgetMillis = 0;
+        // run Dijkstra first and stop as soon as the GA matches the optimal cost
+        public boolean exactBound = false;
+
+        // memetic hybrid (both off by default):
+        // seedFraction of the first population walks an A* path S -> random waypoint -> G,
+        // and every generation the best localSearch chromosomes that reach G get their path
+        // improved segment by segment (localSearchSegment moves) with a windowed Dijkstra
+        public double seedFraction = 0;
+        public int localSearch = 0;
+        public int localSearchSegment = 16;
+
+        // receives generations / evaluations and setup / search / reconstruct times
+        public SolverMetrics metrics = SolverMetrics.NONE;
+        // polled once per generation
+        public CancellationToken cancel = CancellationToken.NONE;
+        // gets the best path after generations that improved it (when it wants a snapshot)
+        public SearchObserver observer = SearchObserver.NONE;
+    }
 
-        int[] dx = {-1, 1, 0, 0};
-        int[] dy = {0, 0, -1, 1};
+    // individuals are handled in fixed blocks; every block draws from its own SplittableRandom
+    // seeded by (seed, population, generation, block), so results do not depend on scheduling
+    private static final int BLOCK = 16;
 
-        Random rand = new Random();
+    public static Result solve(MazeGrid grid, Config cfg) {
 
-        int[][] pop = initPopulation(POP, LEN, rand);
-        int[][] next = new int[POP][LEN];
-        double[] fitness = new double[POP];
+        long t0 = System.nanoTime();
 
-        int[] bestChrom = null;
-        List<Point> bestPath = null;
-        int bestCost = Integer.MAX_VALUE;
+        if (grid.start() < 0 || grid.goal() < 0)
+            return new Result(null, -1, 0, System.nanoTime() - t0, 0, StopReason.NO_PATH);
+
+        SolverMetrics metrics = cfg.metrics;
+        Progress progress = new Progress(grid, cfg.observer);
+        Stopper stop = new Stopper(grid, cfg, t0);
+        if (stop.reason == StopReason.NO_PATH)
+            return new Result(null, -1, 0, System.nanoTime() - t0, 0, StopReason.NO_PATH);
+
+        if (cfg.islands > 0) return solveIslands(grid, cfg, stop, progress, t0);
+
+        // ============ PURE GA PARAMETERS ============
+        final int GEN = cfg.generations;
+        Population p = new Population(0, cfg.population, grid.size(), cfg, cfg.mutation, cfg.crossover);
+        p.init(grid, cfg.seed, cfg.pool);
+        long t1 = System.nanoTime();
+        metrics.phase(SolverMetrics.Phase.SETUP, t1 - t0);
 
         // ===================== GA LOOP =====================
+        StopReason reason = StopReason.GENERATIONS;
         for (int gen = 0; gen < GEN; gen++) {
+            p.evaluate(grid, cfg.pool);
+            metrics.generation(p.size);
+            progress.offer(p);
+            StopReason r = stop.check(p);
+            if (r != null) {
+                reason = r;
+                break;
+            }
+            p.breed(cfg.seed, gen, cfg.pool);
+        }
+        long t2 = System.nanoTime();
+        metrics.phase(SolverMetrics.Phase.SEARCH, t2 - t1);
+
+        // ถ้าไม่มี path ถึง goal -> SolveResult ว่าง
+        List<Point> bestPath = p.bestChrom == null ? null : bestPath(p.bestChrom, grid, new Scores(1));
+        long t3 = System.nanoTime();
+        metrics.phase(SolverMetrics.Phase.RECONSTRUCT, t3 - t2);
+        return new Result(bestPath, p.bestCost, p.size * p.generation, t3 - t0, p.generation, reason);
+    }
+
+    // ===================== STOPPING =====================
+    private static final class Stopper {
+        final int stall, target;
+        final long deadline;     // System.nanoTime() value, Long.MAX_VALUE = none
+        final CancellationToken cancel;
+        int optimum = -1;
+        // set by the first island that hits a global rule, every island stops on it
+        volatile StopReason reason;
+
+        Stopper(MazeGrid grid, Config cfg, long t0) {
+            stall = cfg.stallGenerations;
+            target = cfg.targetCost;
+            deadline = cfg.timeBudgetMillis > 0 ? t0 + cfg.timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+            cancel = cfg.cancel;
+            if (cfg.exactBound) {
+                optimum = Dijkstra.solve(grid, new SolveContext(SolverMetrics.NONE, cancel)).cost;
+                if (optimum < 0) reason = StopReason.NO_PATH;
+            }
+        }
 
-            for (int i = 0; i < POP; i++) {
-                FitnessResult r = evaluate(
-                        pop[i], sx, sy, gx, gy, n, m, grid, dx, dy
-                );
+        // null -> keep going
+        StopReason check(Population p) {
+            StopReason r = reason;
+            if (r != null) return r;
+            if (p.bestCost <= optimum) return reason = StopReason.OPTIMAL;
+            if (p.bestCost <= target) return reason = StopReason.TARGET;
+            if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0) return reason = StopReason.TIME_BUDGET;
+            if (cancel.isCancelled())
+                return reason = cancel.timedOut() ? StopReason.TIME_BUDGET : StopReason.CANCELLED;
+            // stalling is per population: one converged island does not stop the others
+            if (stall > 0 && p.bestChrom != null && p.generation - p.lastImprovement >= stall) return StopReason.STALLED;
+            return null;
+        }
+    }
 
-                // ใช้ fitness ปกติสำหรับ selection
-                fitness[i] = fitness(r);
+    // ===================== PROGRESS =====================
+    // hands the observer the best path so far, once it beats the last one published
+    // (islands call this concurrently; the path is decoded on the calling island's thread)
+    private static final class Progress {
+        final MazeGrid grid;
+        final SearchObserver observer;
+        volatile int published = Integer.MAX_VALUE;
+
+        Progress(MazeGrid grid, SearchObserver observer) {
+            this.grid = grid;
+            this.observer = observer;
+        }
 
-                if (r.reached) {
-                    // สร้าง path และ clean loop
-                    List<Point> path = buildPath(pop[i], sx, sy, gx, gy, n, m, grid, dx, dy);
-                    List<Point> cleanedPath = simplifyPath(path, gx, gy);
+        void offer(Population p) {
+            if (observer == SearchObserver.NONE || p.bestCost >= published) return;
+            synchronized (this) {
+                if (p.bestCost >= published || !observer.wantsSnapshot()) return;
+                published = p.bestCost;
+                observer.publish(new SearchObserver.Snapshot(null, null, bestCells(p.bestChrom, grid),
+                        p.bestCost, p.size * p.generation, p.generation));
+            }
+        }
+    }
 
-                    int c = calculatePathCost(cleanedPath, grid);
+    // ===================== ISLANDS =====================
+    private static Result solveIslands(MazeGrid grid, Config cfg, Stopper stop, Progress progress, long t0) {
+        final int ISLANDS = cfg.islands;
+        final int GEN = cfg.generations;
+        final int size = Math.max(cfg.elite + 2, cfg.population / ISLANDS);
+
+        // ring mailbox: slot i holds the latest emigrants of island i, taken by island i + 1
+        SolverMetrics metrics = cfg.metrics;
+        AtomicReferenceArray<long[][]> mailbox = new AtomicReferenceArray<>(ISLANDS);
+        Population[] islands = new Population[ISLANDS];
+        for (int k = 0; k < ISLANDS; k++) {
+            double mut = cfg.islandMutation != null && cfg.islandMutation.length > 0
+                    ? cfg.islandMutation[k % cfg.islandMutation.length] : cfg.mutation;
+            double cross = cfg.islandCrossover != null && cfg.islandCrossover.length > 0
+                    ? cfg.islandCrossover[k % cfg.islandCrossover.length] : cfg.crossover;
+            islands[k] = new Population(k, size, grid.size(), cfg, mut, cross);
+        }
 
-                    // เก็บ chromosome + path ที่ cost ต่ำสุด
-                    if (c < bestCost) {
-                        bestCost = c;
-                        bestChrom = pop[i].clone();
-                        bestPath = cleanedPath;
+        // a global rule wins; otherwise GENERATIONS if any island ran to the end, else STALLED
+        StopReason reason = StopReason.STALLED;
+        if (cfg.pool == null) {
+            // on the caller: islands take turns a generation at a time, so migration is deterministic
+            for (Population p : islands) p.init(grid, cfg.seed, null);
+            boolean[] stopped = new boolean[ISLANDS];
+            int running = ISLANDS;
+            for (int gen = 0; gen < GEN && running > 0; gen++) {
+                for (Population p : islands) {
+                    if (stopped[p.id]) continue;
+                    if (islandGeneration(p, gen, grid, cfg, stop, progress, mailbox) != null) {
+                        stopped[p.id] = true;
+                        running--;
                     }
                 }
             }
+            if (running > 0) reason = StopReason.GENERATIONS;
+        } else {
+            List<ForkJoinTask<StopReason>> tasks = new ArrayList<>();
+            for (Population p : islands) {
+                tasks.add(cfg.pool.submit(() -> {
+                    // each island is single-threaded; the islands themselves run in parallel
+                    p.init(grid, cfg.seed, null);
+                    for (int gen = 0; gen < GEN; gen++) {
+                        StopReason r = islandGeneration(p, gen, grid, cfg, stop, progress, mailbox);
+                        if (r != null) return r;
+                    }
+                    return StopReason.GENERATIONS;
+                }));
+            }
+            for (ForkJoinTask<StopReason> t : tasks)
+                if (t.join() == StopReason.GENERATIONS) reason = StopReason.GENERATIONS;
+        }
+        if (stop.reason != null) reason = stop.reason;
+        long t2 = System.nanoTime();
+        metrics.phase(SolverMetrics.Phase.SEARCH, t2 - t0); // islands set up inside their tasks
+
+        Population best = islands[0];
+        int generations = 0, evaluated = 0;
+        for (Population p : islands) {
+            if (p.bestCost < best.bestCost) best = p;
+            generations = Math.max(generations, p.generation);
+            evaluated += p.size * p.generation;
+        }
+
+        List<Point> bestPath = best.bestChrom == null ? null : bestPath(best.bestChrom, grid, new Scores(1));
+        long t3 = System.nanoTime();
+        metrics.phase(SolverMetrics.Phase.RECONSTRUCT, t3 - t2);
+        return new Result(bestPath, best.bestCost, evaluated, t3 - t0, generations, reason);
+    }
+
+    // one island generation: evaluate, stop rules, breed, migrate; the stop reason or null
+    private static StopReason islandGeneration(Population p, int gen, MazeGrid grid, Config cfg, Stopper stop,
+                                               Progress progress, AtomicReferenceArray<long[][]> mailbox) {
+        int islands = mailbox.length();
+        p.evaluate(grid, null);
+        cfg.metrics.generation(p.size);
+        progress.offer(p);
+        StopReason r = stop.check(p);
+        if (r != null) return r;
+        p.breed(cfg.seed, gen, null);
+        if (islands > 1 && (gen + 1) % cfg.migrationInterval == 0) {
+            mailbox.set(p.id, p.emigrants(cfg.migrants));
+            long[][] in = mailbox.getAndSet((p.id + islands - 1) % islands, null);
+            if (in != null) p.immigrate(in);
+        }
+        return null;
+    }
+
+    // ===================== POPULATION =====================
+    // one evolving population: the whole GA (single mode) or one island
+    // pool == null runs every step on the calling thread
+    private static final class Population {
+        final int id, size, len, words, elite, tournament, blocks;
+        final int seeds, localSearch, segment;
+        final double mutation, crossover;
+        long[][] pop, next;
+        final Scores scores;
+        final Integer[] idx;
+
+        // lineage of pop[i]: its genes before same[i] equal chromosome parent[i] of the previous
+        // generation (-1 = no parent), whose walk checkpoints are in spare after the swap
+        final int[] parent, same;
+        Checkpoints ck, spare;
+
+        long[] bestChrom;
+        int bestCost = Integer.MAX_VALUE;
+        int generation;        // generations evaluated so far
+        int lastImprovement;   // generation that last lowered bestCost
+
+        Population(int id, int size, int len, Config cfg, double mutation, double crossover) {
+            this.id = id;
+            this.size = size;
+            this.len = len;
+            this.words = words(len);
+            this.elite = Math.min(cfg.elite, size);
+            this.tournament = cfg.tournament;
+            this.mutation = mutation;
+            this.crossover = crossover;
+            this.blocks = (size + BLOCK - 1) / BLOCK;
+            this.seeds = (int) Math.min(size, Math.round(cfg.seedFraction * size));
+            this.localSearch = Math.min(cfg.localSearch, size);
+            this.segment = Math.max(2, cfg.localSearchSegment);
+            this.pop = new long[size][words];
+            this.next = new long[size][words];
+            this.scores = new Scores(size);
+            this.idx = new Integer[size];
+            this.parent = new int[size];
+            this.same = new int[size];
+            this.ck = new Checkpoints(size, len);
+            this.spare = new Checkpoints(size, len);
+            Arrays.fill(parent, -1);
+        }
+
+        void init(MazeGrid grid, long seed, ForkJoinPool pool) {
+            forEach(pool, blocks, b -> {
+                SplittableRandom rand = blockRandom(seed, id, -1, b);
+                for (int i = b * BLOCK; i < Math.min(size, (b + 1) * BLOCK); i++) {
+                    for (int w = 0; w < words; w++)
+                        pop[i][w] = rand.nextLong(); // 32 random moves per word
+                    if (i < seeds) seedPath(pop[i], len, grid, rand);
+                }
+            });
+        }
+
+        // score every chromosome, remember the cheapest path, rank by fitness
+        void evaluate(MazeGrid grid, ForkJoinPool pool) {
+            long[][] cur = pop;
+            Checkpoints prev = ck, own = spare;
+            ck = own;
+            spare = prev;
+            // evaluation: independent per chromosome, resumed from the parent's checkpoints
+            forEach(pool, size, i -> GeneticSolver.evaluate(cur[i], len, grid, prev, parent[i], same[i], own, scores, i));
+
+            // memetic step: shorten the paths of the best few, then rescore them from S
+            if (localSearch > 0) {
+                rank();
+                forEach(pool, localSearch, e -> {
+                    int i = idx[e];
+                    if (scores.reached[i] && improvePath(cur[i], len, grid, segment, scores, i))
+                        GeneticSolver.evaluate(cur[i], len, grid, prev, -1, 0, own, scores, i);
+                });
+            }
+
+            // เก็บ chromosome ที่ cost ต่ำสุด (scan ตามลำดับ index -> deterministic)
+            for (int i = 0; i < size; i++) {
+                if (scores.reached[i] && scores.pathCost[i] < bestCost) {
+                    bestCost = scores.pathCost[i];
+                    if (bestChrom == null) bestChrom = new long[words];
+                    System.arraycopy(cur[i], 0, bestChrom, 0, words);
+                    lastImprovement = generation + 1;
+                }
+            }
+            generation++;
+            rank();
+        }
 
-            // Selection + Elitism
-            Integer[] idx = new Integer[POP];
-            for (int i = 0; i < POP; i++) idx[i] = i;
+        // Selection order
+        private void rank() {
+            double[] fitness = scores.fitness;
+            for (int i = 0; i < size; i++) idx[i] = i;
             Arrays.sort(idx, (a, b) -> Double.compare(fitness[b], fitness[a]));
+        }
+
+        void breed(long seed, int gen, ForkJoinPool pool) {
+            long[][] cur = pop, nxt = next;
+            double[] fitness = scores.fitness;
 
             // Elitism
-            for (int i = 0; i < ELITE; i++)
-                System.arraycopy(pop[idx[i]], 0, next[i], 0, LEN);
+            for (int i = 0; i < elite; i++) {
+                System.arraycopy(cur[idx[i]], 0, nxt[i], 0, words);
+                parent[i] = idx[i];
+                same[i] = len;
+            }
 
-            // Reproduction
-            for (int i = ELITE; i < POP; i++) {
-                int p1 = idx[tournament(idx, fitness, rand, TOURN)];
-                int p2 = idx[tournament(idx, fitness, rand, TOURN)];
+            // Reproduction: one random stream per block of children
+            forEach(pool, blocks, b -> {
+                SplittableRandom rand = blockRandom(seed, id, gen, b);
+                for (int i = Math.max(elite, b * BLOCK); i < Math.min(size, (b + 1) * BLOCK); i++) {
+                    int p1 = idx[GeneticSolver.tournament(idx, fitness, rand, tournament)];
+                    int p2 = idx[GeneticSolver.tournament(idx, fitness, rand, tournament)];
+
+                    int cut = len;
+                    if (rand.nextDouble() < crossover)
+                        cut = GeneticSolver.crossover(cur[p1], cur[p2], nxt[i], len, rand);
+                    else
+                        System.arraycopy(cur[p1], 0, nxt[i], 0, words);
+
+                    parent[i] = p1;
+                    same[i] = Math.min(cut, GeneticSolver.mutate(nxt[i], len, mutation, rand));
+                }
+            });
 
-                if (rand.nextDouble() < CROSS)
-                    crossover(pop[p1], pop[p2], next[i], LEN, rand);
-                else
-                    System.arraycopy(pop[p1], 0, next[i], 0, LEN);
+            pop = nxt;
+            next = cur;
+        }
 
-                mutate(next[i], MUT, rand);
-            }
+        // copies of the best k chromosomes of the generation just ranked
+        long[][] emigrants(int k) {
+            k = Math.min(k, size);
+            long[][] out = new long[k][];
+            for (int i = 0; i < k; i++) out[i] = next[idx[i]].clone(); // next = ranked parents after breed()
+            return out;
+        }
 
-            int[][] tmp = pop; pop = next; next = tmp;
+        // immigrants replace the children in the last slots, never the elite copies. Children are
+        // not scored until the next evaluate(), so these are not the worst ones, just ordinary
+        // offspring of tournament selection, as likely to be good as any other non-elite child
+        void immigrate(long[][] in) {
+            for (int i = 0; i < in.length && size - 1 - i >= elite; i++) {
+                System.arraycopy(in[i], 0, pop[size - 1 - i], 0, words);
+                parent[size - 1 - i] = -1;
+            }
         }
+    }
 
-        // ถ้าไม่มี path ถึง goal
-        if (bestPath == null) return Collections.emptyList();
+    // ===================== PARALLEL =====================
+    private static void forEach(ForkJoinPool pool, int count, IntConsumer body) {
+        if (pool == null) {
+            for (int i = 0; i < count; i++) body.accept(i);
+            return;
+        }
+        pool.submit(() -> IntStream.range(0, count).parallel().forEach(body)).join();
+    }
 
-        return bestPath;
+    private static SplittableRandom blockRandom(long seed, int population, int gen, int block) {
+        long h = seed * 0x9E3779B97F4A7C15L + population;
+        h = h * 0xBF58476D1CE4E5B9L + gen;
+        h = h * 0x94D049BB133111EBL + block;
+        return new SplittableRandom(h ^ (h >>> 31));
     }
 
     // ===================== FITNESS =====================
-    private static class FitnessResult {
-        boolean reached;
-        int cost, steps, revisits, manhattan;
+    // per-chromosome results, one slot per individual (no object per evaluation)
+    private static class Scores {
+        final boolean[] reached;
+        final int[] cost, steps, manhattan;
+        final int[] revisits, pathCost; // valid when reached (pathCost = cost of the loop-erased path)
+        final double[] fitness;
+
+        Scores(int n) {
+            reached = new boolean[n];
+            cost = new int[n];
+            steps = new int[n];
+            revisits = new int[n];
+            manhattan = new int[n];
+            pathCost = new int[n];
+            fitness = new double[n];
+        }
     }
 
-    private static FitnessResult evaluate(
-            int[] c, int sx, int sy, int gx, int gy,
-            int n, int m, String[][] g,
-            int[] dx, int[] dy) {
+    // reusable per-thread simulation state
+    // seen[] is epoch-stamped so it never needs clearing; trail[] is the loop-erased walk
+    // (pos[cell] = index of cell in trail, valid only while trail[pos[cell]] == cell)
+    private static class EvalWorkspace {
+        int[] seen = new int[0];
+        int[] pos = new int[0];
+        int[] trail = new int[0];
+        int trailLen;
+        int epoch;
+
+        void begin(int cells, int genes) {
+            if (seen.length < cells) {
+                seen = new int[cells];
+                pos = new int[cells];
+                epoch = 0;
+            }
+            if (trail.length < genes + 1) trail = new int[genes + 1];
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                epoch = 1;
+            }
+            trailLen = 0;
+        }
+    }
 
-        FitnessResult r = new FitnessResult();
-        boolean[][] visited = new boolean[n][m];
+    private static final ThreadLocal<EvalWorkspace> EVAL = ThreadLocal.withInitial(EvalWorkspace::new);
 
-        int x = sx, y = sy;
-        visited[x][y] = true;
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
 
-        for (int mv : c) {
-            int nx = x + dx[mv];
-            int ny = y + dy[mv];
+    // ===================== GENOME =====================
+    // chromosomes are packed 2 bits per move, 32 moves per long (gene j = bits 2*(j%32) of word j/32)
+    // bits past the last gene are never decoded
+    private static int words(int genes) {
+        return (genes + 31) >>> 5;
+    }
 
-            if (nx < 0 || ny < 0 || nx >= n || ny >= m) continue;
-            int w = weight(g[nx][ny]);
-            if (w < 0) continue;
+    private static void setGene(long[] c, int j, int mv) {
+        int w = j >>> 5, sh = (j & 31) << 1;
+        c[w] = (c[w] & ~(3L << sh)) | ((long) mv << sh);
+    }
 
-            x = nx; y = ny;
-            r.steps++;
-            r.cost += w;
+    // ===================== CHECKPOINTS =====================
+    // walk state (cell, cost, steps) before gene k * CHECKPOINT, for k < count
+    // a walk that misses G is scored from that state alone, so a child only re-walks
+    // the genes after the last checkpoint it shares with its parent
+    private static final int CHECKPOINT = 512; // genes, a multiple of 32 -> word aligned
+
+    private static final class Checkpoints {
+        final int[][] cell, cost, steps;
+        final int[] count;
+
+        Checkpoints(int size, int genes) {
+            int slots = Math.max(1, (genes + CHECKPOINT - 1) / CHECKPOINT);
+            cell = new int[size][slots];
+            cost = new int[size][slots];
+            steps = new int[size][slots];
+            count = new int[size];
+        }
+    }
 
-            if (visited[x][y]) r.revisits++;
-            visited[x][y] = true;
+    // score chromosome i into out / ck; genes before `same` are those of chromosome `parent`
+    // of the previous generation (checkpointed in prev), parent < 0 walks from S
+    // only walks that reach G are replayed in full for revisits and the loop-erased path
+    private static void evaluate(long[] c, int genes, MazeGrid g, Checkpoints prev, int parent, int same,
+                                 Checkpoints ck, Scores out, int i) {
+        int rows = g.rows(), cols = g.cols();
+        int goal = g.goal();
+        int[] ckCell = ck.cell[i], ckCost = ck.cost[i], ckSteps = ck.steps[i];
+
+        int slot = 0;
+        if (parent >= 0 && prev.count[parent] > 0) {
+            slot = Math.min(same / CHECKPOINT, prev.count[parent] - 1);
+            System.arraycopy(prev.cell[parent], 0, ckCell, 0, slot + 1);
+            System.arraycopy(prev.cost[parent], 0, ckCost, 0, slot + 1);
+            System.arraycopy(prev.steps[parent], 0, ckSteps, 0, slot + 1);
+        } else {
+            ckCell[0] = g.start();
+            ckCost[0] = 0;
+            ckSteps[0] = 0;
+        }
 
-            if (x == gx && y == gy) {
-                r.reached = true;
-                break;
+        int cur = ckCell[slot];
+        int x = cur / cols, y = cur % cols;
+        int cost = ckCost[slot], steps = ckSteps[slot];
+        int count = slot + 1;
+        boolean reached = false;
+
+        walk:
+        for (int j = slot * CHECKPOINT, k = j >>> 5; j < genes; k++) {
+            if (j % CHECKPOINT == 0) {
+                int sl = j / CHECKPOINT;
+                ckCell[sl] = cur;
+                ckCost[sl] = cost;
+                ckSteps[sl] = steps;
+                count = sl + 1;
+            }
+            long word = c[k];
+            for (int end = Math.min(genes, j + 32); j < end; j++, word >>>= 2) {
+                int mv = (int) word & 3;
+                int nx = x + DX[mv];
+                int ny = y + DY[mv];
+
+                if (nx < 0 || ny < 0 || nx >= rows || ny >= cols) continue;
+                int next = nx * cols + ny;
+                int w = g.cost(next);
+                if (w < 0) continue;
+
+                x = nx; y = ny; cur = next;
+                steps++;
+                cost += w;
+
+                if (cur == goal) {
+                    reached = true;
+                    break walk;
+                }
             }
         }
+        ck.count[i] = count;
 
-        r.manhattan = Math.abs(x - gx) + Math.abs(y - gy);
-        return r;
-    }
-
-    private static double fitness(FitnessResult r) {
-        if (!r.reached)
-            return -1e6 - r.manhattan * 1000 - r.steps * 10;
-        return 1e8 - r.cost * 1e4 - r.steps * 100 - r.revisits * 500;
+        if (reached) {
+            replay(c, genes, g, EVAL.get(), out, i);
+            return;
+        }
+        out.reached[i] = false;
+        out.cost[i] = cost;
+        out.steps[i] = steps;
+        out.revisits[i] = 0;
+        out.manhattan[i] = Math.abs(x - g.row(goal)) + Math.abs(y - g.col(goal));
+        out.pathCost[i] = 0;
+        out.fitness[i] = fitness(out, i);
     }
 
-    // ===================== GA OPERATORS =====================
-    private static int[][] initPopulation(int p, int len, Random r) {
-        int[][] pop = new int[p][len];
-        for (int i = 0; i < p; i++)
-            for (int j = 0; j < len; j++)
-                pop[i][j] = r.nextInt(4);
-        return pop;
-    }
+    // walk the moves from S; blocked moves are skipped, the walk stops at G
+    // loop erasure happens on the fly: revisiting a cell cuts the trail back to it
+    private static void replay(long[] c, int genes, MazeGrid g, EvalWorkspace ws, Scores out, int i) {
+        int rows = g.rows(), cols = g.cols();
+        int goal = g.goal();
+        ws.begin(rows * cols, genes);
+        int[] seen = ws.seen, pos = ws.pos, trail = ws.trail;
+        int epoch = ws.epoch;
+
+        int cur = g.start();
+        int x = cur / cols, y = cur % cols;
+        seen[cur] = epoch;
+        pos[cur] = 0;
+        trail[0] = cur;
+        int len = 1;
+        int cost = 0, steps = 0, revisits = 0;
+        boolean reached = false;
+
+        // decode straight from the packed words, 2 bits per move
+        walk:
+        for (int j = 0, k = 0; j < genes; k++) {
+            long word = c[k];
+            for (int end = Math.min(genes, j + 32); j < end; j++, word >>>= 2) {
+                int mv = (int) word & 3;
+                int nx = x + DX[mv];
+                int ny = y + DY[mv];
+
+                if (nx < 0 || ny < 0 || nx >= rows || ny >= cols) continue;
+                int next = nx * cols + ny;
+                int w = g.cost(next);
+                if (w < 0) continue;
+
+                x = nx; y = ny; cur = next;
+                steps++;
+                cost += w;
+
+                boolean was = seen[cur] == epoch;
+                if (was) revisits++;
+                seen[cur] = epoch;
+
+                int p = pos[cur];
+                if (was && p < len && trail[p] == cur) {
+                    len = p + 1; // loop closed: erase it
+                } else {
+                    pos[cur] = len;
+                    trail[len++] = cur;
+                }
 
-    private static int tournament(Integer[] idx, double[] f, Random r, int k) {
-        int best = r.nextInt(idx.length);
-        for (int i = 1; i < k; i++) {
-            int c = r.nextInt(idx.length);
-            if (f[idx[c]] > f[idx[best]]) best = c;
+                if (cur == goal) {
+                    reached = true;
+                    break walk;
+                }
+            }
         }
-        return best;
+        ws.trailLen = len;
+
+        int pathCost = 0;
+        if (reached)
+            for (int k = 1; k < len; k++) pathCost += g.cost(trail[k]);
+
+        out.reached[i] = reached;
+        out.cost[i] = cost;
+        out.steps[i] = steps;
+        out.revisits[i] = revisits;
+        out.manhattan[i] = Math.abs(x - g.row(goal)) + Math.abs(y - g.col(goal));
+        out.pathCost[i] = pathCost;
+        out.fitness[i] = fitness(out, i);
     }
 
-    private static void crossover(int[] a, int[] b, int[] c, int len, Random r) {
-        int p1 = r.nextInt(len);
-        int p2 = r.nextInt(len);
-        if (p1 > p2) { int t = p1; p1 = p2; p2 = t; }
-        for (int i = 0; i < len; i++)
-            c[i] = (i >= p1 && i < p2) ? b[i] : a[i];
+    private static double fitness(Scores r, int i) {
+        if (!r.reached[i])
+            return -1e6 - r.manhattan[i] * 1000 - r.steps[i] * 10;
+        return 1e8 - r.cost[i] * 1e4 - r.steps[i] * 100 - r.revisits[i] * 500;
     }
 
-    private static void mutate(int[] c, double rate, Random r) {
-        for (int i = 0; i < c.length; i++)
-            if (r.nextDouble() < rate)
-                c[i] = r.nextInt(4);
+    // only the final best chromosome is turned into Points
+    private static List<Point> bestPath(long[] c, MazeGrid g, Scores tmp) {
+        EvalWorkspace ws = EVAL.get();
+        replay(c, g.size(), g, ws, tmp, 0);
+        List<Point> path = new ArrayList<>(ws.trailLen);
+        for (int k = 0; k < ws.trailLen; k++) path.add(g.point(ws.trail[k]));
+        return path;
     }
 
-    // ===================== PATH BUILD =====================
-    private static List<Point> buildPath(
-            int[] c, int sx, int sy, int gx, int gy,
-            int n, int m, String[][] g,
-            int[] dx, int[] dy) {
+    private static int[] bestCells(long[] c, MazeGrid g) {
+        EvalWorkspace ws = EVAL.get();
+        replay(c, g.size(), g, ws, new Scores(1), 0);
+        return Arrays.copyOf(ws.trail, ws.trailLen);
+    }
 
-        List<Point> path = new ArrayList<>();
-        int x = sx, y = sy;
-        path.add(new Point(x, y));
+    // ===================== MEMETIC =====================
+    // overwrite the first moves of c with an A* path S -> random open waypoint -> G
+    // (falls back to the direct path when the waypoint is walled off)
+    private static void seedPath(long[] c, int genes, MazeGrid g, SplittableRandom rand) {
+        SearchWorkspace ws = SearchWorkspace.forCurrentThread();
+        int start = g.start(), goal = g.goal();
+
+        int[] head = new int[0];
+        for (int attempt = 0; attempt < 8; attempt++) {
+            int w = rand.nextInt(g.size());
+            if (g.isWall(w) || AStar.search(g, start, w, ws) < 0) continue;
+            head = Arrays.copyOf(ws.path, ws.pathLength - 1); // S .. before w
+            start = w;
+            break;
+        }
+        if (AStar.search(g, start, goal, ws) < 0) return;
 
-        for (int mv : c) {
-            int nx = x + dx[mv];
-            int ny = y + dy[mv];
+        int[] cells = Arrays.copyOf(head, head.length + ws.pathLength);
+        System.arraycopy(ws.path, 0, cells, head.length, ws.pathLength);
+        encode(cells, cells.length, c, genes, g.cols());
+    }
 
-            if (nx < 0 || ny < 0 || nx >= n || ny >= m) continue;
-            if (weight(g[nx][ny]) < 0) continue;
+    // replace each run of `segment` moves on the loop-erased path with the cheapest detour
+    // inside the run's bounding box (grown by segment / 2); true when the path got cheaper
+    private static boolean improvePath(long[] c, int genes, MazeGrid g, int segment, Scores tmp, int i) {
+        EvalWorkspace ews = EVAL.get();
+        replay(c, genes, g, ews, tmp, i);
+        int n = ews.trailLen;
+        int[] path = Arrays.copyOf(ews.trail, n);
+
+        SearchWorkspace ws = SearchWorkspace.forCurrentThread();
+        int rows = g.rows(), cols = g.cols(), margin = segment / 2;
+        int[] out = new int[n];
+        int len = 1;
+        out[0] = path[0];
+        boolean better = false;
+
+        for (int a = 0; a < n - 1; ) {
+            int b = Math.min(a + segment, n - 1);
+            int r0 = rows, c0 = cols, r1 = 0, c1 = 0, old = 0;
+            for (int k = a; k <= b; k++) {
+                int r = path[k] / cols, col = path[k] % cols;
+                r0 = Math.min(r0, r); r1 = Math.max(r1, r);
+                c0 = Math.min(c0, col); c1 = Math.max(c1, col);
+                if (k > a) old += g.cost(path[k]);
+            }
+            int cost = DijkstraSolver.searchWindow(g, path[a], path[b],
+                    Math.max(0, r0 - margin), Math.max(0, c0 - margin),
+                    Math.min(rows - 1, r1 + margin), Math.min(cols - 1, c1 + margin), ws);
+
+            int from, count;
+            int[] src;
+            if (cost >= 0 && cost < old) {
+                better = true;
+                src = ws.path; from = 1; count = ws.pathLength - 1;
+            } else {
+                src = path; from = a + 1; count = b - a;
+            }
+            if (len + count > out.length) out = Arrays.copyOf(out, Math.max(len + count, out.length * 2));
+            System.arraycopy(src, from, out, len, count);
+            len += count;
+            a = b;
+        }
 
-            x = nx; y = ny;
-            path.add(new Point(x, y));
+        if (!better || len - 1 > genes) return false;
+        encode(out, len, c, genes, cols);
+        return true;
+    }
 
-            if (x == gx && y == gy) break;
+    // moves along cells[0..n) into the first n - 1 genes; the walk stops at G,
+    // so the genes after it are left as they are
+    private static void encode(int[] cells, int n, long[] c, int genes, int cols) {
+        for (int j = 0; j + 1 < n && j < genes; j++) {
+            int d = cells[j + 1] - cells[j];
+            setGene(c, j, d == -cols ? 0 : d == cols ? 1 : d == -1 ? 2 : 3);
         }
-        return path;
     }
 
-    // ===================== SIMPLIFY PATH =====================
-    private static List<Point> simplifyPath(List<Point> rawPath, int gx, int gy) {
-        if (rawPath.size() <= 1) return rawPath;
-
-        List<Point> cleaned = new ArrayList<>();
-        Map<String, Integer> lastSeen = new HashMap<>();
-
-        cleaned.add(rawPath.get(0));
-        lastSeen.put(rawPath.get(0).x + "," + rawPath.get(0).y, 0);
+    // ===================== GA OPERATORS =====================
+    private static int tournament(Integer[] idx, double[] f, SplittableRandom r, int k) {
+        int best = r.nextInt(idx.length);
+        for (int i = 1; i < k; i++) {
+            int c = r.nextInt(idx.length);
+            if (f[idx[c]] > f[idx[best]]) best = c;
+        }
+        return best;
+    }
 
-        for (int i = 1; i < rawPath.size(); i++) {
-            Point cur = rawPath.get(i);
-            String key = cur.x + "," + cur.y;
+    // two-point: genes [p1, p2) from b, the rest from a; whole words are copied,
+    // only the two words holding the cut points are blended with a mask
+    // returns the first gene taken from b (len if the child is a copy of a)
+    private static int crossover(long[] a, long[] b, long[] c, int len, SplittableRandom r) {
+        int p1 = r.nextInt(len);
+        int p2 = r.nextInt(len);
+        if (p1 > p2) { int t = p1; p1 = p2; p2 = t; }
 
-            if (cur.x == gx && cur.y == gy) {
-                if (!cleaned.get(cleaned.size() - 1).equals(cur))
-                    cleaned.add(cur);
-                break;
-            }
+        System.arraycopy(a, 0, c, 0, a.length);
+        if (p1 == p2) return len;
 
-            if (lastSeen.containsKey(key)) {
-                int loopStart = lastSeen.get(key);
-                cleaned = new ArrayList<>(cleaned.subList(0, loopStart + 1));
-                lastSeen.clear();
-                for (int j = 0; j < cleaned.size(); j++) {
-                    Point p = cleaned.get(j);
-                    lastSeen.put(p.x + "," + p.y, j);
-                }
-                cleaned.add(cur);
-                lastSeen.put(key, cleaned.size() - 1);
-                continue;
-            }
+        int w1 = p1 >>> 5, w2 = p2 >>> 5;
+        long from = -1L << ((p1 & 31) << 1);                              // genes >= p1 in w1
+        long below = (p2 & 31) == 0 ? 0 : ~(-1L << ((p2 & 31) << 1));  // genes < p2 in w2
+        if (w1 == w2) {
+            long m = from & below;
+            c[w1] = (a[w1] & ~m) | (b[w1] & m);
+            return p1;
+        }
+        c[w1] = (a[w1] & ~from) | (b[w1] & from);
+        System.arraycopy(b, w1 + 1, c, w1 + 1, w2 - w1 - 1);
+        c[w2] = (a[w2] & ~below) | (b[w2] & below);
+        return p1;
+    }
 
-            cleaned.add(cur);
-            lastSeen.put(key, cleaned.size() - 1);
+    // each gene is redrawn with probability rate; instead of one coin per gene the gap to
+    // the next mutated gene is drawn from the geometric distribution
+    // returns the first redrawn gene (len if none)
+    private static int mutate(long[] c, int len, double rate, SplittableRandom r) {
+        if (rate <= 0) return len;
+        if (rate >= 1) {
+            for (int j = 0; j < len; j++) setGene(c, j, r.nextInt(4));
+            return 0;
         }
+        double logKeep = Math.log1p(-rate);
+        int first = skip(r, logKeep, len);
+        for (int j = first; j < len; j += 1 + skip(r, logKeep, len))
+            setGene(c, j, r.nextInt(4));
+        return first;
+    }
 
-        return cleaned;
+    // number of untouched genes before the next mutation (capped at len)
+    private static int skip(SplittableRandom r, double logKeep, int len) {
+        double g = Math.floor(Math.log(1.0 - r.nextDouble()) / logKeep);
+        return g >= len ? len : (int) g;
     }
 
     // ===================== COST =====================
     public static int calculatePathCost(List<Point> path, String[][] grid) {
-        int cost = 0;
-        for (int i = 1; i < path.size(); i++) {
-            int w = weight(grid[path.get(i).x][path.get(i).y]);
-            if (w > 0) cost += w;
-        }
-        return cost;
+        return calculatePathCost(path, MazeGrid.fromStrings(grid));
+    }
+
+    public static int calculatePathCost(List<Point> path, MazeGrid grid) {
+        return grid.pathCost(path);
     }
 
     public static int pathCost(List<Point> path, String[][] grid) {
@@ -275,4 +844,8 @@ public class GeneticSolver {
     public static int pathCost(String[][] grid, List<Point> path) {
         return calculatePathCost(path, grid);
     }
+
+    public static int pathCost(MazeGrid grid, List<Point> path) {
+        return calculatePathCost(path, grid);
+    }
 }
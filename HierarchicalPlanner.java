@@ -0,0 +1,447 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.stream.IntStream;
+
+// HPA*: hierarchical path planning for large grids
+//
+// the grid is cut into clusterSize x clusterSize clusters. Along every border between two
+// clusters, each open run of cell pairs gets one entrance (runs of 6+ get one at each end).
+// Entrance cells are the abstract nodes:
+//   inter edges  across a border, cost = enter-cost of the cell on the other side
+//   intra edges  between the nodes of one cluster, cost from a cluster-bounded Dijkstra
+// a query adds S and G as temporary nodes, runs A* on the abstract graph, then refines
+// every abstract edge with a cluster-bounded Dijkstra. Paths are near-optimal, not exact.
+//
+// the abstraction is built once per map; updateCell() only rebuilds the changed cluster and
+// its four neighbours. A planner is not thread-safe (queries share the abstract scratch).
+public class HierarchicalPlanner {
+
+    public static final int DEFAULT_CLUSTER = 16;
+    private static final int BUILD_CHUNK = 64;
+
+    private final MazeGrid grid;
+    private final int k;
+    private final int cr, cc; // clusters per column / row
+
+    // entrance pairs per border: {cell on left/top cluster, cell on right/bottom cluster, ...}
+    private final int[][] hBorder; // between (i, j) and (i, j + 1): i * (cc - 1) + j
+    private final int[][] vBorder; // between (i, j) and (i + 1, j): i * cc + j
+
+    // abstract nodes (ids of removed nodes are reused)
+    private int[] nodeCell = new int[64];
+    private int nodeCount;
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int[][] adjTo = new int[64][];
+    private int[][] adjCost = new int[64][];
+    private int[] adjLen = new int[64];
+
+    private final int[][] clusterNodes;
+    private final int[] clusterNodeCount;
+
+    // query scratch (abstract A*): ids nodeCount / nodeCount + 1 are S / G
+    private final IndexedMinHeap open = new IndexedMinHeap();
+    private int[] g = new int[0], parent = new int[0], stamp = new int[0];
+    private int[] goalCost = new int[0], goalStamp = new int[0];
+    private int epoch;
+    private int pushes, peakOpen; // current query
+    // window searches of updates and queries; indexed inside the cluster, so sized to one
+    // cluster and never to the grid
+    private final SearchWorkspace window = new SearchWorkspace();
+
+    public HierarchicalPlanner(MazeGrid grid) {
+        this(grid, DEFAULT_CLUSTER);
+    }
+
+    public HierarchicalPlanner(MazeGrid grid, int clusterSize) {
+        this(grid, clusterSize, CancellationToken.NONE);
+    }
+
+    // the build polls cancel once per cluster (CancellationException)
+    public HierarchicalPlanner(MazeGrid grid, int clusterSize, CancellationToken cancel) {
+        if (clusterSize < 2) throw new IllegalArgumentException("cluster size must be at least 2");
+        this.grid = grid;
+        this.k = clusterSize;
+        this.cr = (grid.rows() + k - 1) / k;
+        this.cc = (grid.cols() + k - 1) / k;
+        this.hBorder = new int[cr * Math.max(0, cc - 1)][];
+        this.vBorder = new int[Math.max(0, cr - 1) * cc][];
+        this.clusterNodes = new int[cr * cc][];
+        this.clusterNodeCount = new int[cr * cc];
+
+        for (int i = 0; i < cr; i++)
+            for (int j = 0; j < cc; j++) {
+                cancel.check();
+                if (j + 1 < cc) scanHorizontal(i, j);
+                if (i + 1 < cr) scanVertical(i, j);
+            }
+        for (int ci = 0; ci < cr * cc; ci++) refreshNodes(ci);
+        // each cluster only writes the adjacency of its own nodes -> clusters build in parallel,
+        // in runs of BUILD_CHUNK sharing one cluster-sized workspace (nothing left in the workers)
+        int clusters = cr * cc;
+        try {
+            IntStream.range(0, (clusters + BUILD_CHUNK - 1) / BUILD_CHUNK).parallel().forEach(chunk -> {
+                SearchWorkspace ws = new SearchWorkspace();
+                for (int ci = chunk * BUILD_CHUNK; ci < Math.min(clusters, (chunk + 1) * BUILD_CHUNK); ci++) {
+                    cancel.check();
+                    rebuildEdges(ci, ws);
+                }
+            });
+        } catch (CancellationException e) {
+            cancel.check(); // the copy rethrown by the pool loses "cancelled" / "timed out"
+            throw e;
+        }
+    }
+
+    public MazeGrid grid() { return grid; }
+
+    public int nodeCount() {
+        return nodeCount - freeCount;
+    }
+
+    // ===================== ENTRANCES =====================
+    // border between cluster (i, j) and (i, j + 1): column x | x + 1
+    private void scanHorizontal(int i, int j) {
+        int x = (j + 1) * k - 1;
+        int r0 = i * k, r1 = Math.min(grid.rows(), r0 + k) - 1;
+        hBorder[i * (cc - 1) + j] = scanBorder(r0, r1, x, true);
+    }
+
+    // border between cluster (i, j) and (i + 1, j): row y / y + 1
+    private void scanVertical(int i, int j) {
+        int y = (i + 1) * k - 1;
+        int c0 = j * k, c1 = Math.min(grid.cols(), c0 + k) - 1;
+        vBorder[i * cc + j] = scanBorder(c0, c1, y, false);
+    }
+
+    private int[] scanBorder(int from, int to, int line, boolean horizontal) {
+        int[] pairs = new int[8];
+        int n = 0;
+        int runStart = -1;
+        for (int t = from; t <= to + 1; t++) {
+            boolean open = t <= to && isOpen(horizontal ? t : line, horizontal ? line : t)
+                    && isOpen(horizontal ? t : line + 1, horizontal ? line + 1 : t);
+            if (open && runStart < 0) runStart = t;
+            if (!open && runStart >= 0) {
+                int runEnd = t - 1;
+                int[] picks = runEnd - runStart + 1 < 6
+                        ? new int[] { (runStart + runEnd) >>> 1 }
+                        : new int[] { runStart, runEnd };
+                for (int p : picks) {
+                    if (n + 2 > pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    pairs[n++] = horizontal ? grid.index(p, line) : grid.index(line, p);
+                    pairs[n++] = horizontal ? grid.index(p, line + 1) : grid.index(line + 1, p);
+                }
+                runStart = -1;
+            }
+        }
+        return Arrays.copyOf(pairs, n);
+    }
+
+    private boolean isOpen(int r, int c) {
+        return grid.cost(r, c) >= 0;
+    }
+
+    private int clusterOf(int cell) {
+        return (grid.row(cell) / k) * cc + grid.col(cell) / k;
+    }
+
+    // node id of an entrance cell in cluster ci, or -1
+    private int nodeAt(int ci, int cell) {
+        int[] list = clusterNodes[ci];
+        for (int t = 0; t < clusterNodeCount[ci]; t++)
+            if (nodeCell[list[t]] == cell) return list[t];
+        return -1;
+    }
+
+    // ===================== NODES / EDGES =====================
+    // make the node list of ci match the entrance cells on its four borders
+    private void refreshNodes(int ci) {
+        int i = ci / cc, j = ci % cc;
+        int[] cells = new int[16];
+        int n = 0;
+        int[][] sides = {
+                j > 0 ? hBorder[i * (cc - 1) + j - 1] : null,      // left border, we are the right side
+                j + 1 < cc ? hBorder[i * (cc - 1) + j] : null,     // right border, we are the left side
+                i > 0 ? vBorder[(i - 1) * cc + j] : null,          // top border, we are the bottom side
+                i + 1 < cr ? vBorder[i * cc + j] : null            // bottom border, we are the top side
+        };
+        int[] ourSide = { 1, 0, 1, 0 };
+        for (int s = 0; s < 4; s++) {
+            if (sides[s] == null) continue;
+            for (int p = ourSide[s]; p < sides[s].length; p += 2) {
+                int cell = sides[s][p];
+                boolean dup = false;
+                for (int t = 0; t < n; t++) dup |= cells[t] == cell;
+                if (dup) continue;
+                if (n == cells.length) cells = Arrays.copyOf(cells, n * 2);
+                cells[n++] = cell;
+            }
+        }
+
+        int[] old = clusterNodes[ci];
+        int oldCount = clusterNodeCount[ci];
+        int[] ids = new int[n];
+        for (int t = 0; t < n; t++) {
+            int id = -1;
+            for (int u = 0; u < oldCount; u++)
+                if (old[u] >= 0 && nodeCell[old[u]] == cells[t]) { id = old[u]; old[u] = -1; break; }
+            ids[t] = id >= 0 ? id : allocNode(cells[t]);
+        }
+        for (int u = 0; u < oldCount; u++)
+            if (old[u] >= 0) freeNode(old[u]);
+
+        clusterNodes[ci] = ids;
+        clusterNodeCount[ci] = n;
+    }
+
+    private int allocNode(int cell) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = nodeCount++;
+            if (id == nodeCell.length) {
+                int cap = id * 2;
+                nodeCell = Arrays.copyOf(nodeCell, cap);
+                adjTo = Arrays.copyOf(adjTo, cap);
+                adjCost = Arrays.copyOf(adjCost, cap);
+                adjLen = Arrays.copyOf(adjLen, cap);
+            }
+        }
+        nodeCell[id] = cell;
+        adjTo[id] = new int[4];
+        adjCost[id] = new int[4];
+        adjLen[id] = 0;
+        return id;
+    }
+
+    private void freeNode(int id) {
+        nodeCell[id] = -1;
+        adjLen[id] = 0;
+        if (freeCount == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        freeIds[freeCount++] = id;
+    }
+
+    private void addEdge(int from, int to, int cost) {
+        int n = adjLen[from];
+        if (n == adjTo[from].length) {
+            adjTo[from] = Arrays.copyOf(adjTo[from], n * 2);
+            adjCost[from] = Arrays.copyOf(adjCost[from], n * 2);
+        }
+        adjTo[from][n] = to;
+        adjCost[from][n] = cost;
+        adjLen[from] = n + 1;
+    }
+
+    // intra edges from one bounded Dijkstra per node, inter edges from the border pairs
+    private void rebuildEdges(int ci, SearchWorkspace ws) {
+        int i = ci / cc, j = ci % cc;
+        int r0 = i * k, c0 = j * k;
+        int r1 = Math.min(grid.rows(), r0 + k) - 1, c1 = Math.min(grid.cols(), c0 + k) - 1;
+        int[] list = clusterNodes[ci];
+        int count = clusterNodeCount[ci];
+        int w = c1 - c0 + 1;
+
+        for (int t = 0; t < count; t++) {
+            int a = list[t];
+            adjLen[a] = 0;
+            DijkstraSolver.searchWindow(grid, nodeCell[a], -1, r0, c0, r1, c1, ws);
+            for (int u = 0; u < count; u++) {
+                if (u == t) continue;
+                int d = ws.g(DijkstraSolver.windowIndex(grid, nodeCell[list[u]], r0, c0, w));
+                if (d != SearchWorkspace.INF) addEdge(a, list[u], d);
+            }
+        }
+
+        if (j > 0) linkBorder(hBorder[i * (cc - 1) + j - 1], 1, ci, ci - 1);
+        if (j + 1 < cc) linkBorder(hBorder[i * (cc - 1) + j], 0, ci, ci + 1);
+        if (i > 0) linkBorder(vBorder[(i - 1) * cc + j], 1, ci, ci - cc);
+        if (i + 1 < cr) linkBorder(vBorder[i * cc + j], 0, ci, ci + cc);
+    }
+
+    private void linkBorder(int[] pairs, int ourSide, int ci, int other) {
+        for (int p = 0; p < pairs.length; p += 2) {
+            int from = nodeAt(ci, pairs[p + ourSide]);
+            int to = nodeAt(other, pairs[p + 1 - ourSide]);
+            addEdge(from, to, grid.cost(pairs[p + 1 - ourSide]));
+        }
+    }
+
+    // ===================== UPDATE =====================
+    // set one cell (cost < 0 -> wall) and repair the abstraction around its cluster
+    public void updateCell(int r, int c, int cost) {
+        int cell = grid.index(r, c);
+        grid.setCell(cell, cost);
+
+        int ci = clusterOf(cell);
+        int i = ci / cc, j = ci % cc;
+        if (j > 0) scanHorizontal(i, j - 1);
+        if (j + 1 < cc) scanHorizontal(i, j);
+        if (i > 0) scanVertical(i - 1, j);
+        if (i + 1 < cr) scanVertical(i, j);
+
+        int[] affected = { ci, j > 0 ? ci - 1 : -1, j + 1 < cc ? ci + 1 : -1,
+                i > 0 ? ci - cc : -1, i + 1 < cr ? ci + cc : -1 };
+        for (int a : affected) if (a >= 0) refreshNodes(a);
+        for (int a : affected) if (a >= 0) rebuildEdges(a, window);
+        // clusters further out keep their inter edges into the ring: entrances on borders that
+        // were not rescanned keep their cells, so refreshNodes() keeps their ids
+    }
+
+    // ===================== QUERY =====================
+    public SolveResult solve() {
+        return solve(SolveContext.DEFAULT);
+    }
+
+    public SolveResult solve(SolveContext ctx) {
+        if (grid.start() < 0 || grid.goal() < 0) return new SolveResult("HPA*", null, -1, 0, 0);
+        return solve(grid.start(), grid.goal(), ctx);
+    }
+
+    public SolveResult solve(int start, int goal) {
+        return solve(start, goal, SolveContext.DEFAULT);
+    }
+
+    // cells row-major; no path (-1) when either one is a wall. Cancellable
+    // (CancellationException), reports the abstract search and the refinement into ctx.metrics
+    public SolveResult solve(int start, int goal, SolveContext ctx) {
+        check(start);
+        check(goal);
+        long t0 = System.nanoTime();
+        if (grid.isWall(start) || grid.isWall(goal))
+            return new SolveResult("HPA*", null, -1, 0, System.nanoTime() - t0);
+
+        int n = nodeCount;
+        int sId = n, gId = n + 1;
+        beginQuery(n + 2);
+        pushes = 0;
+        peakOpen = 0;
+
+        int sc = clusterOf(start), gc = clusterOf(goal);
+
+        // G as a temporary node: cost(n -> G) = cost(G -> n) + cost(G) - cost(n)
+        // (same cells, only the one not charged changes), so one Dijkstra from G is enough
+        window(gc, goal, -1);
+        int[] gl = clusterNodes[gc];
+        for (int t = 0; t < clusterNodeCount[gc]; t++) {
+            int d = windowG(gc, nodeCell[gl[t]]);
+            if (d == SearchWorkspace.INF) continue;
+            goalStamp[gl[t]] = epoch;
+            goalCost[gl[t]] = d + grid.cost(goal) - grid.cost(nodeCell[gl[t]]);
+        }
+
+        // S as a temporary node: edges to the nodes of its cluster (and to G if it is local)
+        window(sc, start, -1);
+        int gr = grid.row(goal), gcol = grid.col(goal);
+        int mc = grid.minCost();
+        stamp[sId] = epoch;
+        g[sId] = 0;
+        parent[sId] = -1;
+        int[] sl = clusterNodes[sc];
+        for (int t = 0; t < clusterNodeCount[sc]; t++) {
+            int d = windowG(sc, nodeCell[sl[t]]);
+            if (d != SearchWorkspace.INF) relax(sl[t], d, sId, gr, gcol, mc, nodeCell[sl[t]]);
+        }
+        if (sc == gc && windowG(sc, goal) != SearchWorkspace.INF) relax(gId, windowG(sc, goal), sId, gr, gcol, mc, goal);
+
+        int expanded = 1;
+        while (!open.isEmpty()) {
+            int cur = open.poll();
+            if (cur == gId) break;
+            if ((++expanded & CancellationToken.POLL_MASK) == 0) ctx.cancel.check();
+            int gCur = g[cur];
+
+            for (int e = 0; e < adjLen[cur]; e++) {
+                int to = adjTo[cur][e];
+                relax(to, gCur + adjCost[cur][e], cur, gr, gcol, mc, nodeCell[to]);
+            }
+            if (goalStamp[cur] == epoch) relax(gId, gCur + goalCost[cur], cur, gr, gcol, mc, goal);
+        }
+
+        long t1 = System.nanoTime();
+        ctx.metrics.search(expanded, pushes, 0, peakOpen);
+        ctx.metrics.phase(SolverMetrics.Phase.SEARCH, t1 - t0);
+        if (stamp[gId] != epoch)
+            return new SolveResult("HPA*", null, -1, expanded, t1 - t0);
+
+        // abstract route G .. S, then refine each hop on the grid
+        int[] route = new int[16];
+        int len = 0;
+        for (int v = gId; v != -1; v = parent[v]) {
+            if (len == route.length) route = Arrays.copyOf(route, len * 2);
+            route[len++] = v;
+        }
+
+        List<Point> path = new ArrayList<>();
+        path.add(grid.point(start));
+        for (int t = len - 1; t > 0; t--) {
+            ctx.cancel.check();
+            int a = cellOf(route[t], start, goal, sId, gId);
+            int b = cellOf(route[t - 1], start, goal, sId, gId);
+            if (a == b) continue;
+            if (clusterOf(a) != clusterOf(b)) {
+                path.add(grid.point(b)); // inter edge: one step across the border
+                continue;
+            }
+            window(clusterOf(a), a, b);
+            for (int p = 1; p < window.pathLength(); p++) path.add(grid.point(window.pathCell(p)));
+        }
+        long t2 = System.nanoTime();
+        ctx.metrics.phase(SolverMetrics.Phase.RECONSTRUCT, t2 - t1);
+        return new SolveResult("HPA*", path, g[gId], expanded, t2 - t0);
+    }
+
+    private void check(int cell) {
+        if (cell < 0 || cell >= grid.size())
+            throw new IllegalArgumentException("cell " + cell + " outside the " + grid.rows() + "x" + grid.cols() + " grid");
+    }
+
+    private int cellOf(int id, int start, int goal, int sId, int gId) {
+        if (id == sId) return start;
+        if (id == gId) return goal;
+        return nodeCell[id];
+    }
+
+    private void window(int ci, int source, int target) {
+        int r0 = (ci / cc) * k, c0 = (ci % cc) * k;
+        DijkstraSolver.searchWindow(grid, source, target, r0, c0,
+                Math.min(grid.rows(), r0 + k) - 1, Math.min(grid.cols(), c0 + k) - 1, window);
+    }
+
+    // distance to a cell of cluster ci after window(ci, ...)
+    private int windowG(int ci, int cell) {
+        int c0 = (ci % cc) * k;
+        int w = Math.min(grid.cols(), c0 + k) - c0;
+        return window.g(DijkstraSolver.windowIndex(grid, cell, (ci / cc) * k, c0, w));
+    }
+
+    private void relax(int id, int cost, int from, int gr, int gc, int mc, int cell) {
+        if (stamp[id] == epoch && cost >= g[id]) return;
+        stamp[id] = epoch;
+        g[id] = cost;
+        parent[id] = from;
+        int h = AStar.heuristic(grid.row(cell), grid.col(cell), gr, gc, mc);
+        open.offer(id, ((long) (cost + h) << 32) | h);
+        pushes++;
+        if (open.size() > peakOpen) peakOpen = open.size();
+    }
+
+    private void beginQuery(int n) {
+        if (g.length < n) {
+            int cap = Math.max(n, g.length * 2);
+            g = new int[cap];
+            parent = new int[cap];
+            stamp = new int[cap];
+            goalCost = new int[cap];
+            goalStamp = new int[cap];
+            epoch = 0;
+        }
+        epoch++;
+        open.ensureCapacity(n);
+        open.clear();
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.SplittableRandom;
+
+// randomized check of IncrementalPlanner, no dependencies: random small maps (cost 0..9, so
+// "0" cells included), random batches of edits, every repaired result compared with a fresh
+// Dijkstra; exits 1 on the first mismatch
+//
+//   java IncrementalCheck [seeds]
+public class IncrementalCheck {
+
+    public static void main(String[] args) {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int checked = 0;
+        for (int seed = 1; seed <= seeds; seed++) {
+            SplittableRandom rand = new SplittableRandom(seed);
+            MazeGenerator.Config cfg = new MazeGenerator.Config();
+            cfg.rows = 5 + rand.nextInt(30);
+            cfg.cols = 5 + rand.nextInt(50);
+            cfg.seed = seed;
+            cfg.layout = MazeGenerator.Layout.values()[seed % MazeGenerator.Layout.values().length];
+            cfg.minCost = rand.nextInt(2);
+            MazeGrid grid = MazeGenerator.generate(cfg);
+            IncrementalPlanner planner = new IncrementalPlanner(grid);
+
+            for (int round = 0; round < 20; round++) {
+                if (round > 0) {
+                    for (int e = 1 + rand.nextInt(10); e > 0; e--) {
+                        int cell = rand.nextInt(grid.size());
+                        if (cell == grid.start() || cell == grid.goal()) continue;
+                        int cost = rand.nextInt(4) == 0 ? -1 : rand.nextInt(10);
+                        planner.updateCell(grid.row(cell), grid.col(cell), cost);
+                    }
+                }
+                SolveResult got = planner.solve();
+                int want = Dijkstra.solve(grid).cost;
+                if (want == DijkstraSolver.INFINITY) want = -1;
+                int walked = got.found() ? grid.pathCost(got.path) : -1;
+                if (got.cost != want || walked != want) {
+                    System.out.printf("seed %d round %d (%dx%d, minCost %d): LPA* cost %d, its path %d, Dijkstra %d%n",
+                            seed, round, grid.rows(), grid.cols(), grid.minCost(), got.cost, walked, want);
+                    System.exit(1);
+                }
+                checked++;
+            }
+        }
+        System.out.println(checked + " repaired plans match Dijkstra");
+    }
+}
@@ -0,0 +1,227 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// LPA* (Lifelong Planning A*): shortest S -> G path on a grid that changes between queries
+//
+// every cell keeps g (cost of the best path found so far) and rhs (one-step lookahead:
+// cheapest open neighbour's g + own enter-cost). A cell is inconsistent when g != rhs, and
+// only inconsistent cells are queued, by [min(g, rhs) + h, min(g, rhs)]. The first solve()
+// is an ordinary A*; updateCell() changes the grid and re-evaluates rhs around the cell, so
+// the next solve() settles only the part of the shortest-path tree the change reaches.
+//
+// S and G are the grid's and fixed. Entering a cell costs cost(cell): a new cost changes the
+// edges into the cell, becoming / leaving a wall also changes the edges out of it.
+// g / rhs / bp stay valid between calls, so a cancelled solve() resumes where it stopped.
+// On a grid with "0" cells the repair is not trusted: a stale g can keep itself alive around a
+// cycle of free cells (only neighbours whose bp is the changed cell are re-derived), so an
+// edited grid with minCost 0 is searched from scratch.
+// A planner is not thread-safe.
+public class IncrementalPlanner {
+
+    private static final int INF = SearchWorkspace.INF;
+
+    private final MazeGrid grid;
+    private final int rows, cols;
+    private final int[] g, rhs;
+    private final int[] bp; // neighbour that gives rhs, -1 = none
+    private final IndexedMinHeap open = new IndexedMinHeap();
+    private int hMin;       // minCost the heuristic was built with
+    private boolean edited; // updateCell() since the last solve()
+    private int expanded, pushes, peakOpen; // last solve()
+
+    public IncrementalPlanner(MazeGrid grid) {
+        this.grid = grid;
+        this.rows = grid.rows();
+        this.cols = grid.cols();
+        int n = grid.size();
+        g = new int[n];
+        rhs = new int[n];
+        bp = new int[n];
+        open.ensureCapacity(n);
+        reset();
+    }
+
+    public MazeGrid grid() {
+        return grid;
+    }
+
+    // forget all search state, the next solve() starts from scratch
+    private void reset() {
+        Arrays.fill(g, INF);
+        Arrays.fill(rhs, INF);
+        Arrays.fill(bp, -1);
+        open.clear();
+        hMin = grid.minCost();
+        int start = grid.start();
+        if (start >= 0 && grid.goal() >= 0) {
+            rhs[start] = 0;
+            open.offer(start, key(start));
+        }
+    }
+
+    // ===================== UPDATE =====================
+    // set one cell (cost < 0 -> wall); the path is repaired by the next solve()
+    public void updateCell(int r, int c, int cost) {
+        grid.setCell(grid.index(r, c), cost);
+        cellChanged(r, c);
+    }
+
+    // the grid's cell (r, c) was already set by someone else (e.g. Solvers.updateCell, which
+    // keeps a cached HPA* planner in step); same repair as updateCell()
+    public void cellChanged(int r, int c) {
+        int cell = grid.index(r, c);
+        edited = true;
+        if (grid.minCost() < hMin) {
+            // a cheaper cell shrinks the heuristic, queued keys would be out of order
+            reset();
+            return;
+        }
+        updateVertex(cell);
+        for (int d = 0; d < 4; d++) {
+            int nr = r + DR[d], nc = c + DC[d];
+            if (nr >= 0 && nr < rows && nc >= 0 && nc < cols) updateVertex(nr * cols + nc);
+        }
+    }
+
+    // several cells at once (cells row-major, costs[k] for cells[k]), repaired in one solve()
+    public void updateCells(int[] cells, int[] costs) {
+        if (cells.length != costs.length) throw new IllegalArgumentException("cells and costs differ in length");
+        for (int k = 0; k < cells.length; k++) updateCell(grid.row(cells[k]), grid.col(cells[k]), costs[k]);
+    }
+
+    // ===================== QUERY =====================
+    public SolveResult solve() {
+        return solve(SolveContext.DEFAULT);
+    }
+
+    // cancellable (CancellationException), reports the repair work into ctx.metrics
+    public SolveResult solve(SolveContext ctx) {
+        long t0 = System.nanoTime();
+        int start = grid.start(), goal = grid.goal();
+        if (start < 0 || goal < 0)
+            return new SolveResult("LPA*", null, -1, 0, System.nanoTime() - t0);
+
+        if (edited && grid.minCost() == 0) reset();
+        edited = false;
+        expanded = 0;
+        pushes = 0;
+        peakOpen = open.size();
+        computeShortestPath(ctx.cancel);
+        List<Point> path = g[goal] == INF ? null : tracePath(start, goal);
+        if (path == null && g[goal] != INF) {
+            // bp runs in a cycle: g is stale somewhere, search again from scratch
+            reset();
+            computeShortestPath(ctx.cancel);
+            path = g[goal] == INF ? null : tracePath(start, goal);
+        }
+        long t1 = System.nanoTime();
+        // cost and path always come from the same g / bp
+        int cost = path == null ? -1 : g[goal];
+        long t2 = System.nanoTime();
+
+        ctx.metrics.search(expanded, pushes, 0, peakOpen);
+        ctx.metrics.phase(SolverMetrics.Phase.SEARCH, t1 - t0);
+        ctx.metrics.phase(SolverMetrics.Phase.RECONSTRUCT, t2 - t1);
+        return new SolveResult("LPA*", path, cost, expanded, t2 - t0);
+    }
+
+    private void computeShortestPath(CancellationToken cancel) {
+        int start = grid.start(), goal = grid.goal();
+        // <= rather than LPA*'s <: entering G (and "0" cells) is free, so a cell whose g is
+        // about to go up can tie G's key exactly and must still be processed
+        while (!open.isEmpty() && (open.minKey() <= key(goal) || rhs[goal] != g[goal])) {
+            if ((++expanded & CancellationToken.POLL_MASK) == 0) cancel.check();
+            int u = open.poll();
+            int r = u / cols, c = u - r * cols;
+
+            if (g[u] > rhs[u]) {
+                // overconsistent: settle, and offer the new g to the neighbours
+                g[u] = rhs[u];
+                for (int d = 0; d < 4; d++) {
+                    int nr = r + DR[d], nc = c + DC[d];
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                    int s = nr * cols + nc;
+                    if (s == start || grid.isWall(s)) continue;
+                    int cand = g[u] + grid.cost(s);
+                    if (cand < rhs[s]) {
+                        rhs[s] = cand;
+                        bp[s] = u;
+                        queue(s);
+                    }
+                }
+            } else {
+                // underconsistent (a cost went up): drop g, re-derive u and whoever relied on it
+                g[u] = INF;
+                updateVertex(u);
+                for (int d = 0; d < 4; d++) {
+                    int nr = r + DR[d], nc = c + DC[d];
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                    int s = nr * cols + nc;
+                    if (bp[s] == u) updateVertex(s);
+                }
+            }
+        }
+    }
+
+    // recompute rhs from the open neighbours, then (un)queue u
+    private void updateVertex(int u) {
+        if (u != grid.start()) {
+            int best = INF, from = -1;
+            if (!grid.isWall(u)) {
+                int r = u / cols, c = u - r * cols;
+                for (int d = 0; d < 4; d++) {
+                    int nr = r + DR[d], nc = c + DC[d];
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                    int p = nr * cols + nc;
+                    if (g[p] < best && !grid.isWall(p)) {
+                        best = g[p];
+                        from = p;
+                    }
+                }
+                if (best != INF) best += grid.cost(u);
+            }
+            rhs[u] = best;
+            bp[u] = from;
+        }
+        queue(u);
+    }
+
+    private void queue(int u) {
+        if (g[u] != rhs[u]) {
+            open.update(u, key(u));
+            pushes++;
+            if (open.size() > peakOpen) peakOpen = open.size();
+        } else {
+            open.remove(u);
+        }
+    }
+
+    // [min(g, rhs) + h, min(g, rhs)] packed like AStar's keys
+    private long key(int u) {
+        int m = Math.min(g[u], rhs[u]);
+        if (m == INF) return Long.MAX_VALUE;
+        int goal = grid.goal();
+        int h = AStar.heuristic(u / cols, u % cols, grid.row(goal), grid.col(goal), hMin);
+        return ((long) (m + h) << 32) | m;
+    }
+
+    // G back to S along bp, null when bp breaks off or runs in a cycle
+    private List<Point> tracePath(int start, int goal) {
+        int len = 1;
+        for (int c = goal; c != start; c = bp[c]) {
+            if (c < 0 || ++len > grid.size()) return null;
+        }
+        Point[] cells = new Point[len];
+        int c = goal;
+        for (int k = len - 1; k >= 0; k--) {
+            cells[k] = grid.point(c);
+            if (k > 0) c = bp[c];
+        }
+        return new ArrayList<>(Arrays.asList(cells));
+    }
+
+    private static final int[] DR = { -1, 1, 0, 0 };
+    private static final int[] DC = { 0, 0, -1, 1 };
+}
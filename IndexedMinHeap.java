@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+// binary min-heap over int items (cell indices) with long keys and real decrease-key
+// pos[item] is the slot of item in the heap or -1, so no stale duplicates are ever pushed
+// arrays only grow; clear() is O(size) so the heap can be reused between searches
+public class IndexedMinHeap {
+
+    private int[] heap = new int[16];
+    private long[] keys = new long[16]; // key of heap[slot]
+    private int[] pos = new int[0];
+    private int size;
+
+    public void ensureCapacity(int items) {
+        if (pos.length < items) {
+            int old = pos.length;
+            pos = Arrays.copyOf(pos, items);
+            Arrays.fill(pos, old, items, -1);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) pos[heap[i]] = -1;
+        size = 0;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public boolean contains(int item) { return pos[item] >= 0; }
+    public long minKey() { return keys[0]; }
+    public int peek() { return heap[0]; }
+
+    public long key(int item) {
+        return keys[pos[item]];
+    }
+
+    // queued items in heap order (copy)
+    public int[] toArray() {
+        return Arrays.copyOf(heap, size);
+    }
+
+    // insert item, or lower its key if it is already queued; returns false if the key was not lower
+    public boolean offer(int item, long key) {
+        int p = pos[item];
+        if (p >= 0) {
+            if (key >= keys[p]) return false;
+            keys[p] = key;
+            siftUp(p);
+            return true;
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        heap[size] = item;
+        keys[size] = key;
+        pos[item] = size;
+        siftUp(size++);
+        return true;
+    }
+
+    // set item's key up or down, inserting it if absent (LPA* re-keys queued cells both ways)
+    public void update(int item, long key) {
+        int p = pos[item];
+        if (p < 0) {
+            offer(item, key);
+            return;
+        }
+        long old = keys[p];
+        keys[p] = key;
+        if (key < old) siftUp(p);
+        else siftDown(p);
+    }
+
+    // take item out wherever it is; no-op if absent
+    public void remove(int item) {
+        int p = pos[item];
+        if (p < 0) return;
+        pos[item] = -1;
+        if (p == --size) return;
+        int moved = heap[size];
+        heap[p] = moved;
+        keys[p] = keys[size];
+        pos[moved] = p;
+        siftDown(p);
+        siftUp(pos[moved]);
+    }
+
+    public int poll() {
+        int top = heap[0];
+        pos[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            keys[0] = keys[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    // ===================== SIFT =====================
+    private void siftUp(int p) {
+        int item = heap[p];
+        long key = keys[p];
+        while (p > 0) {
+            int parent = (p - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            heap[p] = heap[parent];
+            keys[p] = keys[parent];
+            pos[heap[p]] = p;
+            p = parent;
+        }
+        heap[p] = item;
+        keys[p] = key;
+        pos[item] = p;
+    }
+
+    private void siftDown(int p) {
+        int item = heap[p];
+        long key = keys[p];
+        int half = size >>> 1;
+        while (p < half) {
+            int child = 2 * p + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child]) child = right;
+            if (key <= keys[child]) break;
+            heap[p] = heap[child];
+            keys[p] = keys[child];
+            pos[heap[p]] = p;
+            p = child;
+        }
+        heap[p] = item;
+        keys[p] = key;
+        pos[item] = p;
+    }
+}
@@ -1,7 +1,277 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.*;
 import java.util.*;
-public class Main{
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// headless batch runner: every (map, algorithm) pair is one job on a fixed pool,
+// one output line per job written as soon as it finishes
+//
+//   java Main [-a A*,Dijkstra] [-t threads] [-f csv|json] [--timeout ms] <map | dir | glob>...
+//
+// a directory stands for its *.txt maps (plus *.mzb files without a .txt next to them),
+// a glob such as maps/m*.txt is matched against the files of its directory
+public class Main {
+
+    private static final String USAGE =
+            "usage: java Main [-a alg,alg...] [-t threads] [-f csv|json] [--timeout ms] <map | dir | glob>...\n"
+          + "  algorithms: " + String.join(", ", Solvers.NAMES) + " (default A*,Dijkstra)";
+
+    private static final String[] COLUMNS =
+            {"map", "algorithm", "rows", "cols", "found", "cost", "steps", "expansions",
+             "pushes", "stalePops", "peakOpen", "generations", "evaluations",
+             "ms", "parseMs", "setupMs", "searchMs", "reconstructMs", "stop", "error"};
+
+    // quoted in JSON, every other column is a number or boolean
+    private static final Set<String> TEXT = new HashSet<>(Arrays.asList("map", "algorithm", "stop", "error"));
+
     public static void main(String[] args) {
-        Scanner sc = new Scanner(System.in);
-        sc.close();
+        List<String> algs = new ArrayList<>(Arrays.asList("A*", "Dijkstra"));
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean json = false;
+        long timeoutMs = 0;
+        List<String> inputs = new ArrayList<>();
+
+        // ===================== ARGUMENTS =====================
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String a = args[i];
+                if (a.equals("-a") || a.equals("--algorithms")) {
+                    algs.clear();
+                    for (String name : value(args, ++i).split(",")) {
+                        String alg = Solvers.find(name);
+                        if (alg == null) throw new IllegalArgumentException("unknown algorithm '" + name + "'");
+                        algs.add(alg);
+                    }
+                } else if (a.equals("-t") || a.equals("--threads")) {
+                    threads = Math.max(1, Integer.parseInt(value(args, ++i)));
+                } else if (a.equals("-f") || a.equals("--format")) {
+                    String f = value(args, ++i);
+                    if (!f.equals("csv") && !f.equals("json")) throw new IllegalArgumentException("unknown format '" + f + "'");
+                    json = f.equals("json");
+                } else if (a.equals("--timeout")) {
+                    timeoutMs = Long.parseLong(value(args, ++i));
+                } else if (a.equals("-h") || a.equals("--help")) {
+                    System.out.println(USAGE);
+                    return;
+                } else {
+                    inputs.add(a);
+                }
+            }
+            if (inputs.isEmpty()) throw new IllegalArgumentException("no maps given");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        List<Path> maps = new ArrayList<>();
+        try {
+            for (String in : inputs) maps.addAll(expand(in));
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+
+        System.exit(run(maps, algs, threads, json, timeoutMs, System.out) ? 0 : 1);
     }
-}
\ No newline at end of file
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    // ===================== INPUTS =====================
+    static List<Path> expand(String input) throws IOException {
+        Path p = Paths.get(input);
+        List<Path> out = new ArrayList<>();
+
+        if (Files.isDirectory(p)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(p)) {
+                for (Path f : ds) {
+                    String name = f.getFileName().toString();
+                    if (name.endsWith(".txt")
+                            || name.endsWith(MazeBinary.EXT) && !Files.exists(textFor(f)))
+                        out.add(f);
+                }
+            }
+        } else if (input.indexOf('*') >= 0 || input.indexOf('?') >= 0 || input.indexOf('[') >= 0) {
+            Path dir = p.getParent() == null ? Paths.get(".") : p.getParent();
+            PathMatcher m = FileSystems.getDefault().getPathMatcher("glob:" + p.getFileName());
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+                for (Path f : ds)
+                    if (Files.isRegularFile(f) && m.matches(f.getFileName())) out.add(f);
+            }
+        } else if (Files.isRegularFile(p)) {
+            out.add(p);
+        } else {
+            throw new NoSuchFileException(input, null, "no such map, directory or glob");
+        }
+
+        if (out.isEmpty()) throw new IOException(input + ": no maps found");
+        Collections.sort(out);
+        return out;
+    }
+
+    private static Path textFor(Path binary) {
+        String name = binary.getFileName().toString();
+        return binary.resolveSibling(name.substring(0, name.length() - MazeBinary.EXT.length()) + ".txt");
+    }
+
+    // ===================== RUN =====================
+    // true when every job finished without an error; timeoutMs > 0 bounds each solve
+    // (a timed-out job reports "timed out", Genetic its best path with stop=TIME_BUDGET)
+    static boolean run(List<Path> maps, List<String> algs, int threads, boolean json, long timeoutMs,
+                       PrintStream out) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<Map<String, String>> done = new ExecutorCompletionService<>(pool);
+        // each map is loaded once, by whichever of its jobs gets there first, and dropped
+        // (with its cached HPA* planner) when the last of its jobs is done
+        ConcurrentHashMap<Path, FutureTask<Loaded>> grids = new ConcurrentHashMap<>();
+        ConcurrentHashMap<Path, AtomicInteger> pending = new ConcurrentHashMap<>();
+        for (Path map : maps)
+            pending.computeIfAbsent(map, k -> new AtomicInteger()).addAndGet(algs.size());
+
+        int jobs = 0;
+        for (Path map : maps)
+            for (String alg : algs) {
+                done.submit(() -> job(map, alg, timeoutMs, grids, pending));
+                jobs++;
+            }
+        pool.shutdown();
+
+        if (!json) out.println(String.join(",", COLUMNS));
+        boolean ok = true;
+        try {
+            for (int k = 0; k < jobs; k++) {
+                Map<String, String> row = done.take().get();
+                ok &= !row.containsKey("error");
+                out.println(json ? jsonLine(row) : csvLine(row));
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause()); // job() reports its own errors
+        }
+        return ok;
+    }
+
+    private static Map<String, String> job(Path map, String alg, long timeoutMs,
+                                           ConcurrentHashMap<Path, FutureTask<Loaded>> grids,
+                                           ConcurrentHashMap<Path, AtomicInteger> pending) {
+        Map<String, String> row = new HashMap<>();
+        row.put("map", map.toString());
+        row.put("algorithm", alg);
+        MazeGrid grid = null;
+        try {
+            Loaded loaded = load(map, grids);
+            grid = loaded.grid;
+            SolverMetrics.Counters m = new SolverMetrics.Counters();
+            m.phase(SolverMetrics.Phase.PARSE, loaded.nanos); // shared by every job on this map
+            row.put("rows", Integer.toString(grid.rows()));
+            row.put("cols", Integer.toString(grid.cols()));
+            SolveResult r = Solvers.solve(alg, grid, new SolveContext(m, CancellationToken.withTimeout(timeoutMs)));
+
+            row.put("found", Boolean.toString(r.found()));
+            row.put("cost", Integer.toString(r.cost));
+            row.put("steps", Integer.toString(r.steps()));
+            row.put("expansions", Integer.toString(r.expansions));
+            row.put("ms", millis(r.elapsedNanos));
+            if (m.pushes() > 0) {
+                row.put("pushes", Long.toString(m.pushes()));
+                row.put("stalePops", Long.toString(m.stalePops()));
+                row.put("peakOpen", Integer.toString(m.peakOpen()));
+            }
+            if (m.generations() > 0) {
+                row.put("generations", Integer.toString(m.generations()));
+                row.put("evaluations", Long.toString(m.evaluations()));
+            }
+            for (SolverMetrics.Phase ph : SolverMetrics.Phase.values())
+                if (m.nanos(ph) > 0)
+                    row.put(ph.name().toLowerCase(Locale.ROOT) + "Ms", millis(m.nanos(ph)));
+            if (r instanceof GeneticSolver.Result)
+                row.put("stop", ((GeneticSolver.Result) r).stopReason.name());
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            row.put("error", cause.getMessage() == null ? cause.toString() : cause.getMessage());
+        } finally {
+            if (pending.get(map).decrementAndGet() == 0) {
+                grids.remove(map);
+                if (grid != null) Solvers.release(grid);
+            }
+        }
+        return row;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static final class Loaded {
+        final MazeGrid grid;
+        final long nanos;
+
+        Loaded(MazeGrid grid, long nanos) {
+            this.grid = grid;
+            this.nanos = nanos;
+        }
+    }
+
+    private static Loaded load(Path map, ConcurrentHashMap<Path, FutureTask<Loaded>> grids)
+            throws InterruptedException, ExecutionException {
+        FutureTask<Loaded> task = new FutureTask<>(() -> {
+            long t0 = System.nanoTime();
+            MazeGrid grid = MazeInput.loadGrid(map.toString());
+            return new Loaded(grid, System.nanoTime() - t0);
+        });
+        FutureTask<Loaded> prev = grids.putIfAbsent(map, task);
+        if (prev == null) {
+            task.run();
+            prev = task;
+        }
+        return prev.get();
+    }
+
+    // ===================== OUTPUT =====================
+    private static String csvLine(Map<String, String> row) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) sb.append(',');
+            String v = row.getOrDefault(COLUMNS[i], "");
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0)
+                sb.append('"').append(v.replace("\"", "\"\"")).append('"');
+            else
+                sb.append(v);
+        }
+        return sb.toString();
+    }
+
+    // columns in COLUMNS order, missing ones left out
+    private static String jsonLine(Map<String, String> row) {
+        StringBuilder sb = new StringBuilder("{");
+        for (String col : COLUMNS) {
+            String v = row.get(col);
+            if (v == null) continue;
+            if (sb.length() > 1) sb.append(',');
+            sb.append('"').append(col).append("\":");
+            if (TEXT.contains(col)) sb.append('"').append(escape(v)).append('"');
+            else sb.append(v);
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String escape(String v) {
+        StringBuilder sb = new StringBuilder(v.length());
+        for (int i = 0; i < v.length(); i++) {
+            char ch = v.charAt(i);
+            if (ch == '"' || ch == '\\') sb.append('\\').append(ch);
+            else if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+            else sb.append(ch);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,175 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+// compiled maze file (.mzb), written next to the text map and memory-mapped on load
+//
+// layout (little endian):
+//   int   magic 'MZB1', int version
+//   int   rows, cols, start, goal
+//   long  source size, source mtime (millis)   -> cache is valid while both match the .txt
+//   short cost[rows * cols]
+//   long  walls[(rows * cols + 63) / 64]
+public class MazeBinary {
+
+    public static final String EXT = ".mzb";
+
+    private static final int MAGIC = 0x31425A4D; // "MZB1"
+    private static final int VERSION = 1;
+    private static final int HEADER = 4 * 6 + 8 * 2;
+    private static final int CHUNK = 1 << 16; // write buffer, bytes
+
+    // ===================== CACHE =====================
+    // load a text map through its .mzb cache, compiling it on the first load
+    public static MazeGrid loadCached(Path textFile) throws IOException {
+        Path bin = cacheFile(textFile);
+        BasicFileAttributes src = Files.readAttributes(textFile, BasicFileAttributes.class);
+        long size = src.size();
+        long mtime = src.lastModifiedTime().toMillis();
+
+        if (Files.isRegularFile(bin)) {
+            try {
+                MazeGrid g = read(bin, size, mtime);
+                if (g != null) return g;
+            } catch (IOException ignored) {
+                // corrupt or old cache -> rebuild below
+            }
+        }
+
+        MazeGrid grid = MazeParser.parse(textFile);
+        try {
+            write(grid, bin, size, mtime);
+        } catch (IOException ignored) {
+            // read-only map directory: still usable, just not cached
+        }
+        return grid;
+    }
+
+    public static Path cacheFile(Path textFile) {
+        String name = textFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return textFile.resolveSibling(base + EXT);
+    }
+
+    // ===================== WRITE =====================
+    public static void write(MazeGrid grid, Path out) throws IOException {
+        write(grid, out, -1, -1);
+    }
+
+    static void write(MazeGrid grid, Path out, long srcSize, long srcMtime) throws IOException {
+        short[] cost = grid.costArray();
+        long[] walls = grid.wallBits();
+
+        ByteBuffer head = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        head.putInt(MAGIC).putInt(VERSION)
+            .putInt(grid.rows()).putInt(grid.cols())
+            .putInt(grid.start()).putInt(grid.goal())
+            .putLong(srcSize).putLong(srcMtime);
+        head.flip();
+
+        // write to a temp file first so a concurrent reader never maps a half-written cache;
+        // plain channel writes, no mapping of our own to keep the tmp file busy (Windows
+        // cannot move or delete a file that is still mapped)
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(ch, head);
+                ByteBuffer buf = ByteBuffer.allocate(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+                for (int off = 0; off < cost.length; off += CHUNK / 2) {
+                    int len = Math.min(CHUNK / 2, cost.length - off);
+                    buf.clear();
+                    buf.asShortBuffer().put(cost, off, len);
+                    buf.limit(len * 2);
+                    writeFully(ch, buf);
+                }
+                for (int off = 0; off < walls.length; off += CHUNK / 8) {
+                    int len = Math.min(CHUNK / 8, walls.length - off);
+                    buf.clear();
+                    buf.asLongBuffer().put(walls, off, len);
+                    buf.limit(len * 8);
+                    writeFully(ch, buf);
+                }
+                ch.force(false);
+            }
+            Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            // e.g. the old cache is still mapped by a reader: leave no .tmp behind
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+
+    // ===================== READ =====================
+    public static MazeGrid read(Path file) throws IOException {
+        MazeGrid g = read(file, -1, -1);
+        if (g == null) throw new IOException(file + ": unsupported maze file version");
+        return g;
+    }
+
+    // returns null when the cache belongs to another version of the source file
+    static MazeGrid read(Path file, long srcSize, long srcMtime) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = ch.size();
+            if (fileSize < HEADER) throw new IOException(file + ": truncated maze header");
+
+            ByteBuffer head = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            while (head.hasRemaining()) if (ch.read(head, head.position()) < 0) break;
+            head.flip();
+
+            if (head.getInt() != MAGIC) throw new IOException(file + ": not a compiled maze");
+            if (head.getInt() != VERSION) return null;
+            int rows = head.getInt();
+            int cols = head.getInt();
+            int start = head.getInt();
+            int goal = head.getInt();
+            long size = head.getLong();
+            long mtime = head.getLong();
+            if (srcSize >= 0 && (size != srcSize || mtime != srcMtime)) return null;
+
+            // check the header before sizing anything by it
+            if (rows <= 0 || cols <= 0)
+                throw new IOException(file + ": bad maze size " + rows + "x" + cols);
+            long cells = (long) rows * cols;
+            if (cells > Integer.MAX_VALUE - 64)
+                throw new IOException(file + ": maze too large (" + rows + "x" + cols + ")");
+            if (start < -1 || start >= cells || goal < -1 || goal >= cells)
+                throw new IOException(file + ": S / G outside the maze");
+            int n = (int) cells;
+            int words = (n + 63) >>> 6;
+            long end = HEADER + (long) n * 2 + (long) words * 8;
+            if (fileSize < end)
+                throw new IOException(file + ": truncated maze body");
+            // one mapping holds at most 2 GB; such a cache is treated as invalid (re-parsed)
+            if (end > Integer.MAX_VALUE)
+                throw new IOException(file + ": maze too large to map (" + rows + "x" + cols + ")");
+
+            long[] walls = new long[words];
+            short[] cost = new short[n];
+
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, end);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            map.position(HEADER);
+            map.asShortBuffer().get(cost);
+            map.position((int) (HEADER + (long) n * 2));
+            map.asLongBuffer().get(walls);
+            return new MazeGrid(rows, cols, cost, walls, start, goal);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// maze view for maps of any size: draws straight from the MazeGrid into cached
+// BufferedImage tiles (about TILE_PX square) and paints only the tiles in the clip
+// a tile is re-rendered only when a cell on it changes (path, search progress, edit)
+// or on zoom; the least recently painted tiles are dropped past MAX_TILES
+// EDT only
+public class MazeCanvas extends JComponent implements Scrollable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int TILE_PX = 256;
+    private static final int MAX_TILES = 256; // ~64 MB at full tile size
+    private static final int[] ZOOMS = {1, 2, 3, 4, 6, 8, 12, 16, 20, 24, 32, 48};
+
+    private static final int WALL = 0x323232;
+    private static final int START = 0xC1FFC1;
+    private static final int GOAL = 0xFFB3B3;
+    private static final int PATH = 0x90EE90;
+    private static final int CLOSED = 0xD6E4FF;
+    private static final int FRONTIER = 0xFFECB3;
+    private static final int GRID_LINE = 0xDDDDDD;
+    private static final Color ARROW = new Color(0, 100, 0);
+    private static final Color TEXT = new Color(70, 70, 70);
+    private static final Color OUTSIDE = new Color(238, 238, 238);
+
+    private MazeGrid grid;
+    private int[] shade = new int[0]; // open cell colour by cost, cheap = white
+    private int zoom = 7;             // index into ZOOMS
+    private int cell;                 // pixels per cell
+    private int tileCells;            // cells per tile side
+
+    private PathOverlay path;
+    private long[] closed;            // live search progress, bit i = cell i
+    private long[] frontier;
+
+    // key = tileRow << 32 | tileCol, access order -> eldest = least recently painted
+    private final LinkedHashMap<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            if (size() <= MAX_TILES) return false;
+            recycle(eldest.getValue());
+            return true;
+        }
+    };
+    private final ArrayDeque<BufferedImage> spare = new ArrayDeque<>();
+    private long lastDirty = -1; // tile just dropped, consecutive cells mostly share one (reset after each batch)
+
+    public MazeCanvas() {
+        setOpaque(true);
+        setZoom(zoom);
+    }
+
+    // ===================== MODEL =====================
+    // new map: drop every tile, pick a zoom that shows a useful part of it
+    // the canvas paints its own copy, so the caller may edit its grid on another thread;
+    // edits reach the view only through cellChanged(cell, cost) on the EDT
+    public void setGrid(MazeGrid grid) {
+        this.grid = grid.copy();
+        path = null;
+        closed = null;
+        frontier = null;
+
+        int max = Math.max(1, grid.maxCost());
+        shade = new int[max + 1];
+        for (int c = 0; c <= max; c++) {
+            int v = 255 - 64 * c / max;
+            shade[c] = v << 16 | v << 8 | v;
+        }
+
+        int side = Math.max(grid.rows(), grid.cols());
+        int z = ZOOMS.length - 1;
+        while (z > 0 && (ZOOMS[z] > 16 || (long) side * ZOOMS[z] > 8192)) z--;
+        setZoom(z);
+    }
+
+    public MazeGrid grid() {
+        return grid;
+    }
+
+    public void setPath(List<Point> points) {
+        showPath(points == null || grid == null ? null : PathOverlay.of(grid.rows(), grid.cols(), points));
+    }
+
+    private void showPath(PathOverlay next) {
+        if (path != null)
+            for (int k = 0; k < path.length(); k++) dirty(path.cell(k));
+        path = next;
+        if (path != null)
+            for (int k = 0; k < path.length(); k++) dirty(path.cell(k));
+        lastDirty = -1;
+        repaint();
+    }
+
+    // running search: settled / queued cells and the partial path; null clears the first two
+    // only tiles whose cells changed since the last snapshot are re-rendered
+    public void setProgress(SearchObserver.Snapshot s) {
+        if (grid == null) return;
+        long[] nextClosed = s == null ? null : s.closed;
+        long[] nextFrontier = null;
+        if (s != null && s.frontier != null) {
+            nextFrontier = new long[(grid.size() + 63) >>> 6];
+            for (int i : s.frontier) nextFrontier[i >>> 6] |= 1L << i;
+        }
+        dirtyChanged(closed, nextClosed);
+        dirtyChanged(frontier, nextFrontier);
+        closed = nextClosed;
+        frontier = nextFrontier;
+        if (s != null) showPath(new PathOverlay(grid.rows(), grid.cols(), s.path));
+        else repaint();
+    }
+
+    // a cell of the map was edited (cost < 0 -> wall)
+    public void cellChanged(int i, int cost) {
+        grid.setCell(i, cost);
+        dirty(i);
+        lastDirty = -1;
+        repaint();
+    }
+
+    // ===================== ZOOM =====================
+    public void zoomIn() {
+        if (zoom + 1 < ZOOMS.length) setZoom(zoom + 1);
+    }
+
+    public void zoomOut() {
+        if (zoom > 0) setZoom(zoom - 1);
+    }
+
+    public int cellSize() {
+        return cell;
+    }
+
+    // keeps the cell under the middle of the viewport in place
+    private void setZoom(int z) {
+        Rectangle view = getVisibleRect();
+        double cx = cell == 0 ? 0 : (view.x + view.width / 2.0) / cell;
+        double cy = cell == 0 ? 0 : (view.y + view.height / 2.0) / cell;
+
+        zoom = z;
+        cell = ZOOMS[z];
+        tileCells = Math.max(1, TILE_PX / cell);
+        tiles.clear();
+        spare.clear();
+        lastDirty = -1;
+
+        Dimension size = getPreferredSize();
+        setSize(size);
+        revalidate();
+        if (getParent() instanceof JViewport) {
+            JViewport vp = (JViewport) getParent();
+            Dimension ext = vp.getExtentSize();
+            int x = (int) Math.round(cx * cell - ext.width / 2.0);
+            int y = (int) Math.round(cy * cell - ext.height / 2.0);
+            x = Math.max(0, Math.min(x, size.width - ext.width));
+            y = Math.max(0, Math.min(y, size.height - ext.height));
+            vp.setViewPosition(new Point(x, y));
+        }
+        repaint();
+    }
+
+    // row-major index of the cell under (x, y) in component pixels, -1 outside the maze
+    public int cellAt(int x, int y) {
+        if (grid == null || x < 0 || y < 0) return -1;
+        int r = y / cell, c = x / cell;
+        return r < grid.rows() && c < grid.cols() ? r * grid.cols() + c : -1;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (grid == null) return new Dimension(0, 0);
+        return new Dimension(grid.cols() * cell, grid.rows() * cell);
+    }
+
+    // ===================== PAINT =====================
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(OUTSIDE);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (grid == null) return;
+
+        int tilePx = tileCells * cell;
+        int tr1 = Math.min((clip.y + clip.height - 1) / tilePx, (grid.rows() - 1) / tileCells);
+        int tc1 = Math.min((clip.x + clip.width - 1) / tilePx, (grid.cols() - 1) / tileCells);
+        for (int tr = Math.max(0, clip.y / tilePx); tr <= tr1; tr++)
+            for (int tc = Math.max(0, clip.x / tilePx); tc <= tc1; tc++)
+                g.drawImage(tile(tr, tc), tc * tilePx, tr * tilePx, null);
+    }
+
+    private BufferedImage tile(int tr, int tc) {
+        long key = (long) tr << 32 | tc;
+        BufferedImage img = tiles.get(key);
+        if (img == null) {
+            img = render(tr, tc);
+            tiles.put(key, img);
+        }
+        return img;
+    }
+
+    private void dirty(int i) {
+        int cols = grid.cols();
+        long key = (long) (i / cols / tileCells) << 32 | (i % cols / tileCells);
+        if (key == lastDirty) return;
+        lastDirty = key;
+        BufferedImage img = tiles.remove(key);
+        if (img != null) recycle(img);
+    }
+
+    // every cell whose bit differs between a and b (either may be null)
+    private void dirtyChanged(long[] a, long[] b) {
+        if (a == null && b == null) return;
+        int words = (grid.size() + 63) >>> 6;
+        for (int w = 0; w < words; w++) {
+            long diff = (a == null ? 0 : a[w]) ^ (b == null ? 0 : b[w]);
+            while (diff != 0) {
+                dirty(w << 6 | Long.numberOfTrailingZeros(diff));
+                diff &= diff - 1;
+            }
+        }
+        lastDirty = -1;
+    }
+
+    private void recycle(BufferedImage img) {
+        if (spare.size() < 16) spare.push(img);
+    }
+
+    // cells [tr * tileCells, ..) x [tc * tileCells, ..), clipped to the maze
+    private BufferedImage render(int tr, int tc) {
+        int rows = grid.rows(), cols = grid.cols();
+        int r0 = tr * tileCells, c0 = tc * tileCells;
+        int nr = Math.min(tileCells, rows - r0), nc = Math.min(tileCells, cols - c0);
+        int w = nc * cell, h = nr * cell;
+
+        BufferedImage img = null;
+        while (!spare.isEmpty() && img == null) {
+            BufferedImage s = spare.pop();
+            if (s.getWidth() == w && s.getHeight() == h) img = s;
+        }
+        if (img == null) img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        int[] px = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        boolean lines = cell >= 6;
+        for (int r = 0; r < nr; r++) {
+            for (int c = 0; c < nc; c++) {
+                int i = (r0 + r) * cols + c0 + c;
+                int rgb = color(i);
+                int base = r * cell * w + c * cell;
+                for (int y = 0; y < cell; y++) {
+                    int p = base + y * w;
+                    boolean edge = lines && y == cell - 1;
+                    for (int x = 0; x < cell; x++)
+                        px[p + x] = edge || (lines && x == cell - 1) ? (rgb == WALL ? WALL : GRID_LINE) : rgb;
+                }
+            }
+        }
+        if (cell >= 14) labels(img, r0, c0, nr, nc);
+        return img;
+    }
+
+    private int color(int i) {
+        if (grid.isWall(i)) return WALL;
+        if (i == grid.start()) return START;
+        if (i == grid.goal()) return GOAL;
+        if (path != null && path.contains(i)) return PATH;
+        if (closed != null && (closed[i >>> 6] & (1L << i)) != 0) return CLOSED;
+        if (frontier != null && (frontier[i >>> 6] & (1L << i)) != 0) return FRONTIER;
+        return shade[Math.min(grid.cost(i), shade.length - 1)];
+    }
+
+    // costs, S / G and path arrows once cells are big enough to read
+    private void labels(BufferedImage img, int r0, int c0, int nr, int nc) {
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, cell * 3 / 5));
+        FontMetrics fm = g.getFontMetrics();
+        int cols = grid.cols();
+        for (int r = 0; r < nr; r++) {
+            for (int c = 0; c < nc; c++) {
+                int i = (r0 + r) * cols + c0 + c;
+                if (grid.isWall(i)) continue;
+                int dir = path == null ? PathOverlay.OFF : path.direction(i);
+                String text;
+                if (dir != PathOverlay.OFF && dir != PathOverlay.END) {
+                    text = PathOverlay.ARROWS[dir];
+                    g.setColor(ARROW);
+                } else if (i == grid.start() || i == grid.goal()) {
+                    text = i == grid.start() ? "S" : "G";
+                    g.setColor(Color.BLACK);
+                } else {
+                    text = Integer.toString(grid.cost(i));
+                    g.setColor(TEXT);
+                }
+                int x = c * cell + (cell - fm.stringWidth(text)) / 2;
+                int y = r * cell + (cell - fm.getHeight()) / 2 + fm.getAscent();
+                g.drawString(text, x, y);
+            }
+        }
+        g.dispose();
+    }
+
+    // ===================== SCROLLABLE =====================
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return Math.max(cell, 16);
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visible.height - cell : visible.width - cell;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -0,0 +1,271 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// seeded maze generator for scaling tests (same config + seed -> same maze)
+//
+//   java MazeGenerator [-r rows] [-c cols] [-s seed] [-l noise|rooms|maze] [-d wallDensity]
+//                      [-b braid] [-k uniform|skewed|patches] [--min n] [--max n] out.txt | out.mzb
+//
+// S is the top-left cell and G the bottom-right one; a random staircase S -> G is always
+// carved open, so G is reachable whatever the layout
+// memory is one short + one bit per cell (10000 x 10000 ~ 215 MB, run with -Xmx1g or more)
+public class MazeGenerator {
+
+    public enum Layout {
+        NOISE,  // every cell is a wall with probability wallDensity
+        ROOMS,  // rectangular rooms joined by corridors until 1 - wallDensity of the area is open
+        MAZE    // sidewinder perfect maze on even cells, each remaining wall opened with probability braid
+    }
+
+    public enum Costs {
+        UNIFORM,  // minCost..maxCost, all equally likely
+        SKEWED,   // mostly cheap cells, a few expensive ones
+        PATCHES   // smooth regions of similar cost (value noise on a 32-cell lattice)
+    }
+
+    public static class Config {
+        public int rows = 100;
+        public int cols = 100;
+        public long seed = 1;
+        public Layout layout = Layout.NOISE;
+        public double wallDensity = 0.25;
+        public double braid = 0.05;
+        public Costs costs = Costs.UNIFORM;
+        public int minCost = 1;
+        public int maxCost = 9;
+    }
+
+    private static final int LATTICE = 32;
+
+    // ===================== GENERATE =====================
+    public static MazeGrid generate(Config cfg) {
+        int rows = cfg.rows, cols = cfg.cols;
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE - 64)
+            throw new IllegalArgumentException("bad maze size " + rows + "x" + cols);
+        if (cfg.minCost < 0 || cfg.maxCost < cfg.minCost || cfg.maxCost > Short.MAX_VALUE)
+            throw new IllegalArgumentException("bad cost range " + cfg.minCost + ".." + cfg.maxCost);
+
+        int n = rows * cols;
+        short[] cost = new short[n];
+        long[] walls = new long[(n + 63) >>> 6];
+        SplittableRandom rand = new SplittableRandom(cfg.seed);
+
+        fillCosts(cost, rows, cols, cfg, rand.split());
+        switch (cfg.layout) {
+            case NOISE: noise(walls, n, cfg.wallDensity, rand.split()); break;
+            case ROOMS: rooms(walls, rows, cols, cfg.wallDensity, rand.split()); break;
+            case MAZE:  maze(walls, rows, cols, cfg.braid, rand.split()); break;
+        }
+
+        int start = 0, goal = n - 1;
+        carveStaircase(walls, rows, cols, rand.split());
+
+        // walls carry no cost, S and G enter for 0 (same as the parsers)
+        for (int i = 0; i < n; i++)
+            if ((walls[i >>> 6] & (1L << i)) != 0) cost[i] = 0;
+        cost[start] = 0;
+        cost[goal] = 0;
+        return new MazeGrid(rows, cols, cost, walls, start, goal);
+    }
+
+    // ===================== COSTS =====================
+    private static void fillCosts(short[] cost, int rows, int cols, Config cfg, SplittableRandom rand) {
+        int lo = cfg.minCost, span = cfg.maxCost - cfg.minCost + 1;
+
+        if (cfg.costs == Costs.PATCHES) {
+            int lr = rows / LATTICE + 2, lc = cols / LATTICE + 2;
+            float[] lattice = new float[lr * lc];
+            for (int k = 0; k < lattice.length; k++) lattice[k] = rand.nextFloat();
+
+            for (int r = 0; r < rows; r++) {
+                int gr = r / LATTICE;
+                float fr = (r % LATTICE) / (float) LATTICE;
+                for (int c = 0; c < cols; c++) {
+                    int gc = c / LATTICE;
+                    float fc = (c % LATTICE) / (float) LATTICE;
+                    float top = lattice[gr * lc + gc] * (1 - fc) + lattice[gr * lc + gc + 1] * fc;
+                    float bot = lattice[(gr + 1) * lc + gc] * (1 - fc) + lattice[(gr + 1) * lc + gc + 1] * fc;
+                    float v = top * (1 - fr) + bot * fr;
+                    cost[r * cols + c] = (short) (lo + Math.min(span - 1, (int) (v * span)));
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < cost.length; i++) {
+            double u = rand.nextDouble();
+            if (cfg.costs == Costs.SKEWED) u = u * u * u;
+            cost[i] = (short) (lo + (int) (u * span));
+        }
+    }
+
+    // ===================== LAYOUTS =====================
+    private static void noise(long[] walls, int n, double density, SplittableRandom rand) {
+        for (int i = 0; i < n; i++)
+            if (rand.nextDouble() < density) walls[i >>> 6] |= 1L << i;
+    }
+
+    // start solid, carve rooms; each new room is joined to the previous one by an L-shaped corridor
+    private static void rooms(long[] walls, int rows, int cols, double density, SplittableRandom rand) {
+        fillWalls(walls, rows * cols);
+        long target = (long) ((1 - density) * rows * cols);
+        int maxSide = Math.max(3, Math.min(40, Math.min(rows, cols) / 8));
+        long open = 0;
+        int prevR = -1, prevC = -1;
+
+        for (long attempt = 0; open < target && attempt < 4L * rows * cols; attempt++) {
+            int h = Math.min(rows, 3 + rand.nextInt(maxSide - 2));
+            int w = Math.min(cols, 3 + rand.nextInt(maxSide - 2));
+            int r0 = rand.nextInt(rows - h + 1), c0 = rand.nextInt(cols - w + 1);
+            for (int r = r0; r < r0 + h; r++)
+                for (int c = c0; c < c0 + w; c++)
+                    open += clear(walls, r * cols + c);
+
+            int cr = r0 + h / 2, cc = c0 + w / 2;
+            if (prevR >= 0) {
+                boolean rowFirst = rand.nextBoolean();
+                int turnR = rowFirst ? prevR : cr, turnC = rowFirst ? cc : prevC;
+                open += line(walls, cols, prevR, prevC, turnR, turnC);
+                open += line(walls, cols, turnR, turnC, cr, cc);
+            }
+            prevR = cr;
+            prevC = cc;
+        }
+    }
+
+    // sidewinder: cells at even (r, c), row by row, needs no stack so it scales to any size
+    private static void maze(long[] walls, int rows, int cols, double braid, SplittableRandom rand) {
+        fillWalls(walls, rows * cols);
+        for (int r = 0; r < rows; r += 2) {
+            int runStart = 0;
+            for (int c = 0; c < cols; c += 2) {
+                clear(walls, r * cols + c);
+                boolean last = c + 2 >= cols;
+                if (r == 0) {
+                    if (!last) clear(walls, r * cols + c + 1);
+                    continue;
+                }
+                if (last || rand.nextBoolean()) {
+                    // close the run: one passage north from a random cell of it
+                    int k = runStart + 2 * rand.nextInt((c - runStart) / 2 + 1);
+                    clear(walls, (r - 1) * cols + k);
+                    runStart = c + 2;
+                } else {
+                    clear(walls, r * cols + c + 1);
+                }
+            }
+        }
+        if (braid > 0)
+            for (int i = 0; i < rows * cols; i++)
+                if ((walls[i >>> 6] & (1L << i)) != 0 && rand.nextDouble() < braid) clear(walls, i);
+    }
+
+    // random monotone path from (0, 0) to (rows - 1, cols - 1)
+    private static void carveStaircase(long[] walls, int rows, int cols, SplittableRandom rand) {
+        int r = 0, c = 0;
+        clear(walls, 0);
+        while (r < rows - 1 || c < cols - 1) {
+            // step down with probability proportional to the rows still to go
+            if (c == cols - 1 || (r < rows - 1 && rand.nextInt(rows - 1 - r + cols - 1 - c) < rows - 1 - r)) r++;
+            else c++;
+            clear(walls, r * cols + c);
+        }
+    }
+
+    private static void fillWalls(long[] walls, int n) {
+        Arrays.fill(walls, -1L);
+        if ((n & 63) != 0) walls[walls.length - 1] = (1L << n) - 1; // keep bits past the grid clear
+    }
+
+    // returns 1 when the cell was a wall
+    private static int clear(long[] walls, int i) {
+        long bit = 1L << i;
+        if ((walls[i >>> 6] & bit) == 0) return 0;
+        walls[i >>> 6] &= ~bit;
+        return 1;
+    }
+
+    // straight horizontal or vertical run, both ends included
+    private static int line(long[] walls, int cols, int r0, int c0, int r1, int c1) {
+        int opened = 0;
+        for (int r = Math.min(r0, r1); r <= Math.max(r0, r1); r++)
+            for (int c = Math.min(c0, c1); c <= Math.max(c0, c1); c++)
+                opened += clear(walls, r * cols + c);
+        return opened;
+    }
+
+    // ===================== WRITE =====================
+    // text map: one line per row framed by '#', walls '#', S / G, costs as "n"
+    public static void writeText(MazeGrid grid, Path out) throws IOException {
+        int rows = grid.rows(), cols = grid.cols();
+        byte[] line = new byte[cols * 7 + 3];
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out), 1 << 16)) {
+            for (int r = 0; r < rows; r++) {
+                int k = 0;
+                line[k++] = '#';
+                for (int c = 0; c < cols; c++) {
+                    int i = r * cols + c;
+                    if (i == grid.start()) line[k++] = 'S';
+                    else if (i == grid.goal()) line[k++] = 'G';
+                    else if (grid.isWall(i)) line[k++] = '#';
+                    else {
+                        line[k++] = '"';
+                        k = putInt(line, k, grid.cost(i));
+                        line[k++] = '"';
+                    }
+                }
+                line[k++] = '#';
+                line[k++] = '\n';
+                os.write(line, 0, k);
+            }
+        }
+    }
+
+    private static int putInt(byte[] b, int k, int v) {
+        if (v >= 10) k = putInt(b, k, v / 10);
+        b[k] = (byte) ('0' + v % 10);
+        return k + 1;
+    }
+
+    // ===================== MAIN =====================
+    public static void main(String[] args) throws IOException {
+        Config cfg = new Config();
+        String out = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-r": cfg.rows = Integer.parseInt(args[++i]); break;
+                    case "-c": cfg.cols = Integer.parseInt(args[++i]); break;
+                    case "-s": cfg.seed = Long.parseLong(args[++i]); break;
+                    case "-l": cfg.layout = Layout.valueOf(args[++i].toUpperCase()); break;
+                    case "-d": cfg.wallDensity = Double.parseDouble(args[++i]); break;
+                    case "-b": cfg.braid = Double.parseDouble(args[++i]); break;
+                    case "-k": cfg.costs = Costs.valueOf(args[++i].toUpperCase()); break;
+                    case "--min": cfg.minCost = Integer.parseInt(args[++i]); break;
+                    case "--max": cfg.maxCost = Integer.parseInt(args[++i]); break;
+                    default: out = args[i];
+                }
+            }
+            if (out == null) throw new IllegalArgumentException("no output file");
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: java MazeGenerator [-r rows] [-c cols] [-s seed] [-l noise|rooms|maze]"
+                    + " [-d wallDensity] [-b braid] [-k uniform|skewed|patches] [--min n] [--max n] out.txt|out.mzb");
+            System.exit(2);
+        }
+
+        long t0 = System.nanoTime();
+        MazeGrid grid = generate(cfg);
+        Path file = Paths.get(out);
+        if (out.endsWith(MazeBinary.EXT)) MazeBinary.write(grid, file);
+        else writeText(grid, file);
+        System.out.printf("%s: %dx%d %s in %.2f s%n", out, cfg.rows, cfg.cols, cfg.layout,
+                (System.nanoTime() - t0) / 1e9);
+    }
+}
@@ -0,0 +1,167 @@
+import java.awt.Point;
+import java.util.List;
+
+// compiled maze shared by all solvers
+// cells are addressed row-major: index = r * cols + c
+// cost[i] is the cost of entering cell i (S/G/E enter for 0), walls are kept in a bitset
+public class MazeGrid {
+
+    private final int rows;
+    private final int cols;
+    private final short[] cost;
+    private final long[] walls;
+    private final int start;
+    private final int goal;
+    private int minCost;
+    private int maxCost;
+
+    MazeGrid(int rows, int cols, short[] cost, long[] walls, int start, int goal) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cost = cost;
+        this.walls = walls;
+        this.start = start;
+        this.goal = goal;
+
+        // smallest / largest enter-cost over open cells other than S and G
+        // (minCost scales the A* heuristic, so a "0" cell must bring it down to 0)
+        int lo = Integer.MAX_VALUE, hi = 0;
+        for (int i = 0; i < cost.length; i++) {
+            if (isWall(i) || i == start || i == goal) continue;
+            int w = cost[i];
+            lo = Math.min(lo, w);
+            hi = Math.max(hi, w);
+        }
+        this.minCost = lo == Integer.MAX_VALUE ? 1 : lo;
+        this.maxCost = hi;
+    }
+
+    // ===================== BUILD =====================
+    public static MazeGrid fromStrings(String[][] grid) {
+        int rows = grid.length;
+        int cols = 0;
+        for (String[] r : grid) cols = Math.max(cols, r.length);
+        return build(rows, cols, grid);
+    }
+
+    public static MazeGrid fromRows(List<String[]> grid) {
+        int cols = 0;
+        for (String[] r : grid) cols = Math.max(cols, r.length);
+        return build(grid.size(), cols, grid.toArray(new String[0][]));
+    }
+
+    // short rows are padded with walls (same as MazeMain did for the table)
+    private static MazeGrid build(int rows, int cols, String[][] grid) {
+        short[] cost = new short[rows * cols];
+        long[] walls = new long[(rows * cols + 63) >>> 6];
+        int start = -1, goal = -1;
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int i = r * cols + c;
+                String v = c < grid[r].length ? grid[r][c] : "X";
+                int w = parseCost(v);
+                if (w < 0) {
+                    walls[i >>> 6] |= 1L << i;
+                    continue;
+                }
+                cost[i] = (short) w;
+                if ("S".equals(v)) start = i;
+                else if ("G".equals(v) || "E".equals(v)) goal = i;
+            }
+        }
+        return new MazeGrid(rows, cols, cost, walls, start, goal);
+    }
+
+    // X / # -> wall (-1), S / G / E -> 0, numbers as-is (clamped to short), anything else -> 1
+    static int parseCost(String v) {
+        if (v == null) return -1;
+        v = v.trim();
+        if (v.isEmpty() || v.equals("X") || v.equals("#")) return -1;
+        if (v.equals("S") || v.equals("G") || v.equals("E")) return 0;
+        try {
+            return Math.min(Short.MAX_VALUE, Math.max(0, Integer.parseInt(v)));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    // independent copy (setCell on one does not show in the other)
+    public MazeGrid copy() {
+        return new MazeGrid(rows, cols, cost.clone(), walls.clone(), start, goal);
+    }
+
+    // back to the table representation used by the Swing views
+    public String[][] toStrings() {
+        String[][] out = new String[rows][cols];
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++) {
+                int i = r * cols + c;
+                if (isWall(i)) out[r][c] = "X";
+                else if (i == start) out[r][c] = "S";
+                else if (i == goal) out[r][c] = "G";
+                else out[r][c] = Integer.toString(cost[i]);
+            }
+        return out;
+    }
+
+    // ===================== ACCESS =====================
+    public int rows() { return rows; }
+    public int cols() { return cols; }
+    public int size() { return cost.length; }
+    public int start() { return start; }
+    public int goal() { return goal; }
+    public int minCost() { return minCost; }
+    public int maxCost() { return maxCost; }
+
+    public int index(int r, int c) { return r * cols + c; }
+    public int row(int i) { return i / cols; }
+    public int col(int i) { return i % cols; }
+    public Point point(int i) { return new Point(i / cols, i % cols); }
+
+    // raw arrays for MazeBinary, not copied
+    short[] costArray() { return cost; }
+    long[] wallBits() { return walls; }
+
+    public boolean isWall(int i) {
+        return (walls[i >>> 6] & (1L << i)) != 0;
+    }
+
+    // enter-cost of cell i, -1 for walls
+    public int cost(int i) {
+        return isWall(i) ? -1 : cost[i];
+    }
+
+    public int cost(int r, int c) {
+        if (r < 0 || c < 0 || r >= rows || c >= cols) return -1;
+        return cost(r * cols + c);
+    }
+
+    // ===================== EDIT =====================
+    // change one cell in place (cost < 0 -> wall); S and G cannot be edited
+    // minCost / maxCost only ever widen, so heuristics stay admissible and Dial's span stays valid
+    public void setCell(int i, int newCost) {
+        if (i == start || i == goal) throw new IllegalArgumentException("cannot edit S or G");
+        if (newCost < 0) {
+            walls[i >>> 6] |= 1L << i;
+            cost[i] = 0;
+            return;
+        }
+        walls[i >>> 6] &= ~(1L << i);
+        cost[i] = (short) Math.min(Short.MAX_VALUE, newCost);
+        minCost = Math.min(minCost, cost[i]);
+        maxCost = Math.max(maxCost, cost[i]);
+    }
+
+    // sum of entering costs along a path, excluding the start cell
+    public int pathCost(List<Point> path) {
+        if (path == null || path.isEmpty()) return 0;
+        int total = 0;
+        for (int i = 1; i < path.size(); i++) {
+            Point p = path.get(i);
+            int w = cost(p.x, p.y);
+            if (w > 0) total += w;
+        }
+        return total;
+    }
+}
@@ -2,56 +2,115 @@ import javax.swing.*;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
-import java.awt.Point;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MazeMain {
 
-    private static JTable table;
-    private static PathRenderer pathRenderer;
+    private static MazeCanvas canvas;
     private static JLabel info;
-    private static String[][] tableData;
-
-    // กำหนดขนาด cell
-    private static void applyCellSize(JTable table, int cols, int size) {
-        table.setRowHeight(size);
-        for (int i = 0; i < cols; i++)
-            table.getColumnModel().getColumn(i).setPreferredWidth(size);
-        table.setFont(new Font("Segoe UI Emoji", Font.BOLD, (int)(size * 0.6)));
+    private static MazeGrid maze;
+    private static IncrementalPlanner lpa;  // edit mode, keeps its search between edits (solver thread only)
+    private static long parseNanos;         // load time of the current map, shown with every run
+
+    // solves run one at a time on this worker; Run, Cancel, loading a map or picking another
+    // algorithm cancels the current one (EDT only), its result is then dropped
+    private static final ExecutorService SOLVER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "maze-solver");
+        t.setDaemon(true);
+        return t;
+    });
+    private static CancellationToken running = CancellationToken.NONE;
+    private static ProgressChannel progress; // live snapshots of the current solve, null when idle
+
+    private static void cancelRun() {
+        running.cancel();
+        finishRun();
+    }
+
+    // the current run or edit is over (EDT, only while its token is still `running`):
+    // a later Cancel then has nothing to stop and leaves the result line alone
+    private static void finishRun() {
+        running = CancellationToken.NONE;
+        if (progress != null) progress.close();
+        progress = null;
     }
 
     // reset view
     private static void resetView() {
-        pathRenderer.setPath(null);
-        table.repaint();
+        canvas.setPath(null);
+        canvas.setProgress(null);
         info.setText("Ready");
     }
 
     // โหลด maze จากไฟล์
     private static void loadMaze(File file) throws IOException {
-        List<String[]> grid = MazeInput.parseMapFile(file.getPath());
-
-        int rows = grid.size();
-        int cols = 0;
-        for (String[] r : grid) cols = Math.max(cols, r.length);
-
-        tableData = new String[rows][cols];
-        for (int i = 0; i < rows; i++)
-            for (int j = 0; j < cols; j++)
-                tableData[i][j] = (j < grid.get(i).length) ? grid.get(i)[j] : "X";
-
-        table.setModel(new javax.swing.table.DefaultTableModel(
-                tableData, new String[cols]
-        ));
-        pathRenderer.setMap(tableData);
-
-        for (int c = 0; c < cols; c++)
-            table.getColumnModel().getColumn(c).setCellRenderer(pathRenderer);
-
-        applyCellSize(table, cols, table.getRowHeight());
+        cancelRun();
+        long t0 = System.nanoTime();
+        MazeGrid old = maze;
+        maze = MazeInput.loadGrid(file.getPath());
+        parseNanos = System.nanoTime() - t0;
+
+        // behind any queued job that still reads the old map
+        SOLVER.submit(() -> {
+            lpa = null; // its arrays are sized to the old map
+            if (old != null) Solvers.release(old);
+        });
+        canvas.setGrid(maze);
         resetView();
     }
 
+    // edit mode: toggle one cell on the solver thread (after any cancelled solve has stopped
+    // reading the grid), then let LPA* repair the path; HPA* is patched if it was built.
+    // The new cost is read off the grid there too, so clicks queued behind a running edit
+    // each toggle the state the previous one left: cycleCost -> wall to 1, else 1..9 in turn;
+    // otherwise wall <-> 1
+    private static void editCell(int cell, boolean cycleCost) {
+        cancelRun();
+        MazeGrid grid = maze;
+        CancellationToken token = new CancellationToken();
+        running = token;
+
+        SOLVER.submit(() -> {
+            try {
+                int r = grid.row(cell), c = grid.col(cell);
+                int cost = grid.isWall(cell) ? 1 : cycleCost ? grid.cost(cell) % 9 + 1 : -1;
+                // the one write to the grid (through a cached HPA* planner if there is one);
+                // LPA* is told afterwards, the canvas gets the new cost on the EDT
+                Solvers.updateCell(grid, r, c, cost);
+                SwingUtilities.invokeLater(() -> canvas.cellChanged(cell, cost));
+                if (lpa == null || lpa.grid() != grid) {
+                    lpa = new IncrementalPlanner(grid);
+                } else {
+                    lpa.cellChanged(r, c);
+                }
+                SolverMetrics.Counters metrics = new SolverMetrics.Counters();
+                SolveResult result = lpa.solve(new SolveContext(metrics, token));
+
+                SwingUtilities.invokeLater(() -> {
+                    if (token != running) return; // a newer edit or run owns the view
+                    finishRun();
+                    canvas.setProgress(null);
+                    canvas.setPath(result.found() ? result.path : null);
+                    info.setText(result.found()
+                            ? String.format("LPA*: Steps=%d Cost=%d Expanded=%d Time=%.3f s | %s",
+                                    result.steps(), result.cost, result.expansions, result.seconds(), metrics)
+                            : "No path found");
+                });
+            } catch (CancellationException ex) {
+                // the cell is changed, LPA* repairs the rest on the next edit
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> {
+                    if (token != running) return;
+                    finishRun();
+                    info.setText("Edit failed: " + ex);
+                });
+            }
+        });
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             try {
@@ -62,33 +121,35 @@ public class MazeMain {
                 chooser.setDialogTitle("Select maze file");
                 if (chooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) return;
 
-                tableData = null;
-                table = new JTable();
-                table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
-                table.setEnabled(false);
-
-                pathRenderer = new PathRenderer(null);
+                canvas = new MazeCanvas();
                 info = new JLabel("Ready");
 
                 loadMaze(chooser.getSelectedFile());
 
-                JScrollPane scroll = new JScrollPane(table);
+                JScrollPane scroll = new JScrollPane(canvas);
 
                 // ===== Top Panel =====
                 JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
 
-                String[] algs = {"A*", "Dijkstra", "Genetic"};
-                JComboBox<String> algSelect = new JComboBox<>(algs);
+                JComboBox<String> algSelect = new JComboBox<>(Solvers.NAMES);
 
                 JButton btnRun = new JButton("▶ Run");
+                JButton btnCancel = new JButton("⏹ Cancel");
+                JSpinner timeout = new JSpinner(new SpinnerNumberModel(0, 0, 3600, 5)); // seconds, 0 = none
                 JButton btnLoad = new JButton("📂 Load File");
+                JToggleButton btnEdit = new JToggleButton("✏ Edit");
+                btnEdit.setToolTipText("click: wall on / off, right click: cost 1..9, path is replanned with LPA*");
                 JButton zoomIn = new JButton("➕");
                 JButton zoomOut = new JButton("➖");
 
                 top.add(new JLabel("Algorithm:"));
                 top.add(algSelect);
                 top.add(btnRun);
+                top.add(btnCancel);
+                top.add(new JLabel("Timeout (s):"));
+                top.add(timeout);
                 top.add(btnLoad);
+                top.add(btnEdit);
                 top.add(Box.createHorizontalStrut(10));
                 top.add(new JLabel("Zoom:"));
                 top.add(zoomIn);
@@ -97,7 +158,10 @@ public class MazeMain {
                 top.add(info);
 
                 // ===== Listeners =====
-                algSelect.addActionListener(e -> resetView());
+                algSelect.addActionListener(e -> {
+                    cancelRun();
+                    resetView();
+                });
 
                 btnLoad.addActionListener(e -> {
                     JFileChooser fc = new JFileChooser(".");
@@ -110,68 +174,89 @@ public class MazeMain {
                     }
                 });
 
-                zoomIn.addActionListener(e -> applyCellSize(
-                        table, table.getColumnCount(), table.getRowHeight() + 3));
+                zoomIn.addActionListener(e -> canvas.zoomIn());
 
-                zoomOut.addActionListener(e -> applyCellSize(
-                        table, table.getColumnCount(), Math.max(9, table.getRowHeight() - 3)));
+                zoomOut.addActionListener(e -> canvas.zoomOut());
 
                 btnRun.addActionListener(e -> {
+                    cancelRun();
                     resetView();
                     String alg = (String) algSelect.getSelectedItem();
-                    info.setText("Running " + alg + "...");
-
-                    new Thread(() -> {
+                    MazeGrid grid = maze;
+                    long timeoutMs = ((Number) timeout.getValue()).longValue() * 1000;
+                    CancellationToken token = CancellationToken.withTimeout(timeoutMs);
+                    running = token;
+                    info.setText(Solvers.showsProgress(alg)
+                            ? "Running " + alg + "..." : "Running " + alg + "... (no live progress)");
+                    // the solver offers a snapshot at most every 100 ms, the EDT draws the newest one
+                    ProgressChannel channel = new ProgressChannel(100, snap -> {
+                        canvas.setProgress(snap);
+                        info.setText(snap.generation >= 0
+                                ? String.format("Running %s... Gen=%d Cost=%d", alg, snap.generation, snap.cost)
+                                : String.format("Running %s... Expanded=%d", alg, snap.expanded));
+                    });
+                    progress = channel;
+
+                    SOLVER.submit(() -> {
                         try {
-                            List<Point> path = null;
-                            int cost = 0;
-                            long t0 = System.nanoTime();
-
-                            // เรียก algorithm ตามเลือก
-                            if ("A*".equals(alg)) {
-                                path = AStar.findPath(tableData);
-                                cost = AStar.pathCost(tableData, path);
-                            } else if ("Dijkstra".equals(alg)) {
-                                path = Dijkstra.findPath(tableData);
-                                cost = Dijkstra.pathCost(tableData, path);
-                            } else {
-                                path = GeneticSolver.findPath(tableData);
-                                cost = GeneticSolver.pathCost(tableData, path);
-                            }
-
-                            double time = (System.nanoTime() - t0) / 1e9;
-                            List<Point> finalPath = path;
-                            int finalCost = cost;
+                            // เรียก algorithm ตามเลือก (ค้นหาครั้งเดียว ได้ path + cost + เวลา)
+                            SolverMetrics.Counters metrics = new SolverMetrics.Counters();
+                            metrics.phase(SolverMetrics.Phase.PARSE, parseNanos);
+                            SolveResult result = Solvers.solve(alg, grid, new SolveContext(metrics, token, channel));
 
                             SwingUtilities.invokeLater(() -> {
-                                if (finalPath == null || finalPath.isEmpty()) {
+                                if (token != running) return; // cancelled or replaced meanwhile
+                                finishRun(); // closes channel
+                                canvas.setProgress(null); // as after an edit: the result replaces the live view
+                                if (!result.found()) {
+                                    canvas.setPath(null);
                                     info.setText("No path found");
                                 } else {
-                                    pathRenderer.setPath(finalPath);
-                                    table.repaint();
-
-                                    // นับ step จริง: ยกเว้นกำแพง
-                                    int steps = 0;
-                                    for (int i = 0; i < finalPath.size() - 1; i++) {
-                                        Point p = finalPath.get(i);
-                                        int r = p.x;
-                                        int c = p.y;
-                                        String cell = tableData[r][c];
-                                        if (!"X".equals(cell) && !"#".equals(cell)) {
-                                            steps++;
-                                        }
+                                    canvas.setPath(result.path);
+
+                                    String text = String.format(
+                                            "%s: Steps=%d Cost=%d Expanded=%d Time=%.3f s",
+                                            alg, result.steps(), result.cost,
+                                            result.expansions, result.seconds());
+                                    if (result instanceof GeneticSolver.Result) {
+                                        GeneticSolver.Result ga = (GeneticSolver.Result) result;
+                                        text += String.format(" Gen=%d (%s)", ga.generations, ga.stopReason);
                                     }
-
-                                    info.setText(String.format(
-                                            "%s: Steps=%d Cost=%d Time=%.3f s",
-                                            alg, steps, finalCost, time));
+                                    info.setText(text + " | " + metrics);
                                 }
                             });
 
+                        } catch (CancellationException ex) {
+                            SwingUtilities.invokeLater(() -> {
+                                if (token != running) return;
+                                finishRun(); // timed out
+                                info.setText(alg + ": " + ex.getMessage());
+                            });
                         } catch (Exception ex) {
                             ex.printStackTrace();
+                            SwingUtilities.invokeLater(() -> {
+                                if (token != running) return;
+                                finishRun();
+                                info.setText(alg + " failed: " + ex);
+                            });
                         }
-                    }).start();
+                    });
+                });
+
+                canvas.addMouseListener(new java.awt.event.MouseAdapter() {
+                    @Override
+                    public void mousePressed(java.awt.event.MouseEvent e) {
+                        if (!btnEdit.isSelected()) return;
+                        int cell = canvas.cellAt(e.getX(), e.getY());
+                        if (cell < 0 || cell == maze.start() || cell == maze.goal()) return;
+                        editCell(cell, SwingUtilities.isRightMouseButton(e));
+                    }
+                });
+
+                btnCancel.addActionListener(e -> {
+                    if (running == CancellationToken.NONE) return;
+                    cancelRun();
+                    info.setText("Cancelled");
                 });
 
                 // ===== Frame =====
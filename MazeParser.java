@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// single-pass byte tokenizer for the text map format:
+//   ###############
+//   #S#"2""1""5"...#
+//   #"7""4"..."5"G#
+// every line is framed by '#'; inside the frame '#' is a wall, S / G (or E) mark start / goal
+// and "n" is a cell with enter-cost n ("#" or "" in quotes is also a wall)
+// cells go straight into a short buffer, no String per line or per cell
+public class MazeParser {
+
+    private static final int CHUNK = 1 << 16;
+
+    // cell markers while parsing (real costs are >= 0)
+    private static final short WALL = -1;
+    private static final short START = -2;
+    private static final short GOAL = -3;
+
+    private short[] cells = new short[1024];
+    private int cellCount;
+    private int[] rowStart = new int[64];
+    private int rowCount;
+    private int cols;
+    private int start = -1, goal = -1;
+
+    private byte[] line = new byte[256];
+    private int lineLen;
+    private int lineNo;
+
+    private final String source;
+
+    private MazeParser(String source) {
+        this.source = source;
+    }
+
+    public static MazeGrid parse(Path file) throws IOException {
+        MazeParser p = new MazeParser(file.toString());
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(CHUNK);
+            byte[] arr = buf.array();
+            while (ch.read(buf) > 0) {
+                int n = buf.position();
+                for (int i = 0; i < n; i++) {
+                    byte b = arr[i];
+                    if (b == '\n') p.endLine();
+                    else p.append(b);
+                }
+                buf.clear();
+            }
+        }
+        p.endLine();
+        return p.build();
+    }
+
+    // ===================== LINE BUFFER =====================
+    private void append(byte b) {
+        if (lineLen == line.length) line = Arrays.copyOf(line, lineLen * 2);
+        line[lineLen++] = b;
+    }
+
+    private void endLine() throws IOException {
+        lineNo++;
+        if (lineLen > 0) parseLine();
+        lineLen = 0;
+    }
+
+    // ===================== ROW =====================
+    private void parseLine() throws IOException {
+        int from = 0, to = lineLen;
+        while (from < to && isSpace(line[from])) from++;
+        while (to > from && isSpace(line[to - 1])) to--;
+        if (to - from < 2) return; // blank or stray line
+
+        if (line[from] != '#') throw error(from, "row must start with '#'");
+        if (line[to - 1] != '#') throw error(to - 1, "row must end with '#'");
+
+        if (rowCount == rowStart.length) rowStart = Arrays.copyOf(rowStart, rowCount * 2);
+        rowStart[rowCount++] = cellCount;
+
+        // content between the two frame characters
+        int i = from + 1, end = to - 1;
+        while (i < end) {
+            byte b = line[i];
+            if (b == '#') {
+                add(WALL);
+                i++;
+            } else if (b == 'S') {
+                addStart(i);
+                i++;
+            } else if (b == 'G' || b == 'E') {
+                addGoal(i);
+                i++;
+            } else if (b == '"') {
+                i = parseQuoted(i, end);
+            } else if (isSpace(b)) {
+                i++;
+            } else {
+                throw error(i, "unexpected character '" + (char) b + "'");
+            }
+        }
+
+        cols = Math.max(cols, cellCount - rowStart[rowCount - 1]);
+    }
+
+    // "n" / "#" / "" / "S" / "G" -> returns index after the closing quote
+    private int parseQuoted(int open, int end) throws IOException {
+        int i = open + 1;
+        while (i < end && isSpace(line[i])) i++;
+
+        if (i < end && line[i] == '"') {
+            add(WALL); // "" is a wall, same as the old parser
+            return i + 1;
+        }
+        if (i >= end) throw error(open, "unterminated quote");
+
+        byte b = line[i];
+        if (b == '#' || b == 'X') {
+            add(WALL);
+            i++;
+        } else if (b == 'S') {
+            addStart(i);
+            i++;
+        } else if (b == 'G' || b == 'E') {
+            addGoal(i);
+            i++;
+        } else if (b == '-' || isDigit(b)) {
+            boolean neg = b == '-';
+            if (neg) i++;
+            if (i >= end || !isDigit(line[i])) throw error(i, "expected a number");
+            int v = 0;
+            while (i < end && isDigit(line[i])) {
+                v = Math.min(Short.MAX_VALUE, v * 10 + (line[i] - '0'));
+                i++;
+            }
+            add((short) (neg ? 0 : v)); // negative costs are clamped to 0
+        } else {
+            throw error(i, "invalid cell value '" + (char) b + "'");
+        }
+
+        while (i < end && isSpace(line[i])) i++;
+        if (i >= end) throw error(open, "unterminated quote");
+        if (line[i] != '"') throw error(i, "expected closing quote");
+        return i + 1;
+    }
+
+    private void add(short v) {
+        if (cellCount == cells.length) cells = Arrays.copyOf(cells, cellCount * 2);
+        cells[cellCount++] = v;
+    }
+
+    private void addStart(int at) throws IOException {
+        if (start >= 0) throw error(at, "second start cell 'S'");
+        start = cellCount;
+        add(START);
+    }
+
+    private void addGoal(int at) throws IOException {
+        if (goal >= 0) throw error(at, "second goal cell 'G'");
+        goal = cellCount;
+        add(GOAL);
+    }
+
+    // ===================== BUILD =====================
+    // rows shorter than the widest one are padded with walls
+    private MazeGrid build() {
+        int rows = rowCount;
+        short[] cost = new short[rows * cols];
+        long[] walls = new long[(rows * cols + 63) >>> 6];
+        int s = -1, g = -1;
+
+        for (int r = 0; r < rows; r++) {
+            int from = rowStart[r];
+            int to = r + 1 < rows ? rowStart[r + 1] : cellCount;
+            for (int c = 0; c < cols; c++) {
+                int i = r * cols + c;
+                short v = from + c < to ? cells[from + c] : WALL;
+                if (v == WALL) {
+                    walls[i >>> 6] |= 1L << i;
+                } else if (v == START) {
+                    s = i;
+                } else if (v == GOAL) {
+                    g = i;
+                } else {
+                    cost[i] = v;
+                }
+            }
+        }
+        return new MazeGrid(rows, cols, cost, walls, s, g);
+    }
+
+    private IOException error(int at, String msg) {
+        return new IOException(source + ":" + lineNo + ":" + (at + 1) + ": " + msg);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,80 @@
+import java.awt.Point;
+import java.util.List;
+
+// a path prepared for drawing: row-major cells, a bitmap for O(1) "is this cell on the path"
+// and the direction to the next cell precomputed in a small open-addressing table
+// (sized to the path, not the grid), so painting a cell neither searches nor allocates
+public class PathOverlay {
+
+    public static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+    public static final int END = 4;   // last cell of the path
+    public static final int OFF = -1;  // not on the path
+
+    public static final String[] ARROWS = {"\u2191", "\u2193", "\u2190", "\u2192", "\u2022"};
+
+    private final int cols;
+    private final int[] cells;
+    private final long[] bits;
+    private final int[] keys;   // cell + 1, 0 = empty slot
+    private final byte[] dirs;  // direction of keys[slot]
+    private final int mask;
+
+    // cells: S first, consecutive cells 4-adjacent (a repeated cell keeps its last direction)
+    public PathOverlay(int rows, int cols, int[] cells) {
+        this.cols = cols;
+        this.cells = cells;
+        this.bits = new long[(rows * cols + 63) >>> 6];
+
+        int cap = Integer.highestOneBit(Math.max(2, cells.length * 2 - 1)) << 1;
+        keys = new int[cap];
+        dirs = new byte[cap];
+        mask = cap - 1;
+
+        for (int k = 0; k < cells.length; k++) {
+            int c = cells[k];
+            bits[c >>> 6] |= 1L << c;
+            int d = k + 1 < cells.length ? step(c, cells[k + 1]) : END;
+            int slot = slot(c);
+            keys[slot] = c + 1;
+            dirs[slot] = (byte) d;
+        }
+    }
+
+    public static PathOverlay of(int rows, int cols, List<Point> path) {
+        int[] cells = new int[path.size()];
+        for (int k = 0; k < cells.length; k++) cells[k] = path.get(k).x * cols + path.get(k).y;
+        return new PathOverlay(rows, cols, cells);
+    }
+
+    public int length() { return cells.length; }
+    public int cell(int k) { return cells[k]; }
+
+    public boolean contains(int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    // UP / DOWN / LEFT / RIGHT toward the next cell, END for the last one, OFF when not on the path
+    public int direction(int cell) {
+        if (!contains(cell)) return OFF;
+        return dirs[slot(cell)];
+    }
+
+    // by row and column deltas: cell deltas alone are ambiguous when cols == 1 (+1 is a row down)
+    // and would take a jump from a row's last cell to the next row's first for a step right
+    private int step(int from, int to) {
+        int dr = to / cols - from / cols, dc = to % cols - from % cols;
+        if (dr == 0 && dc == 1) return RIGHT;
+        if (dr == 0 && dc == -1) return LEFT;
+        if (dr == 1 && dc == 0) return DOWN;
+        if (dr == -1 && dc == 0) return UP;
+        return END;
+    }
+
+    // slot holding cell, or the empty slot where it goes
+    private int slot(int cell) {
+        int h = cell * 0x9E3779B1;
+        int s = (h ^ (h >>> 16)) & mask;
+        while (keys[s] != 0 && keys[s] != cell + 1) s = (s + 1) & mask;
+        return s;
+    }
+}
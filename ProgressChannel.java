@@ -0,0 +1,42 @@
+import javax.swing.SwingUtilities;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// SearchObserver that hands snapshots to the EDT without ever blocking the solver:
+// the solver is asked for a snapshot at most once per interval, a newer snapshot
+// replaces one the EDT has not picked up yet, and at most one invokeLater is pending
+public class ProgressChannel implements SearchObserver {
+
+    private final AtomicReference<Snapshot> latest = new AtomicReference<>();
+    private final Consumer<Snapshot> sink; // runs on the EDT
+    private final long intervalNanos;
+    private volatile long next;            // System.nanoTime() of the next wanted snapshot
+    private volatile boolean closed;
+
+    public ProgressChannel(long intervalMillis, Consumer<Snapshot> sink) {
+        this.sink = sink;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.next = System.nanoTime();
+    }
+
+    @Override
+    public boolean wantsSnapshot() {
+        return !closed && System.nanoTime() - next >= 0;
+    }
+
+    @Override
+    public void publish(Snapshot s) {
+        next = System.nanoTime() + intervalNanos;
+        if (latest.getAndSet(s) == null) SwingUtilities.invokeLater(this::drain);
+    }
+
+    // stop delivering (run replaced, cancelled or finished); snapshots still queued are dropped
+    public void close() {
+        closed = true;
+    }
+
+    private void drain() {
+        Snapshot s = latest.getAndSet(null);
+        if (s != null && !closed) sink.accept(s);
+    }
+}
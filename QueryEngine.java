@@ -0,0 +1,100 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// many (start, goal) queries on one map at once, e.g. every agent's path for a game tick
+//
+// the engine searches its own copy of the grid, so edits to the caller's MazeGrid never race
+// with running queries (build a new engine for a changed map). A batch is cut into chunks; a
+// chunk borrows one SearchWorkspace from the pool and returns it when done. Workspaces reset
+// in O(1) through their epoch stamps, so once the pool is warm a batch allocates only its results.
+// thread-safe: any number of threads may query one engine at the same time
+public class QueryEngine {
+
+    private final MazeGrid grid;
+    private final ForkJoinPool pool;
+    private final ConcurrentLinkedQueue<SearchWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+
+    public QueryEngine(MazeGrid grid) {
+        this(grid, ForkJoinPool.commonPool());
+    }
+
+    public QueryEngine(MazeGrid grid, ForkJoinPool pool) {
+        this.grid = grid.copy();
+        this.pool = pool;
+    }
+
+    // the engine's snapshot, do not edit
+    public MazeGrid grid() {
+        return grid;
+    }
+
+    // ===================== QUERIES =====================
+    // one query on the calling thread (cells row-major)
+    public SolveResult solve(int start, int goal) {
+        SearchWorkspace ws = borrow();
+        try {
+            return query(start, goal, ws, SolveContext.DEFAULT);
+        } finally {
+            workspaces.offer(ws);
+        }
+    }
+
+    // result k answers starts[k] -> goals[k]
+    public SolveResult[] solveAll(int[] starts, int[] goals) {
+        return solveAll(starts, goals, SolveContext.DEFAULT);
+    }
+
+    // ctx.metrics gets every search, ctx.cancel stops the whole batch (CancellationException)
+    public SolveResult[] solveAll(int[] starts, int[] goals, SolveContext ctx) {
+        if (starts.length != goals.length)
+            throw new IllegalArgumentException("starts and goals differ in length");
+        int n = starts.length;
+        for (int k = 0; k < n; k++) {
+            check(starts[k]);
+            check(goals[k]);
+        }
+
+        SolveResult[] out = new SolveResult[n];
+        // a few chunks per worker evens out queries of very different length
+        int chunk = Math.max(1, n / (pool.getParallelism() * 4));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int from = 0; from < n; from += chunk) {
+            int lo = from, hi = Math.min(n, from + chunk);
+            tasks.add(pool.submit(() -> {
+                SearchWorkspace ws = borrow();
+                try {
+                    for (int k = lo; k < hi; k++) out[k] = query(starts[k], goals[k], ws, ctx);
+                } finally {
+                    workspaces.offer(ws);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> t : tasks) t.join();
+        return out;
+    }
+
+    private SearchWorkspace borrow() {
+        SearchWorkspace ws = workspaces.poll();
+        return ws != null ? ws : new SearchWorkspace();
+    }
+
+    private void check(int cell) {
+        if (cell < 0 || cell >= grid.size())
+            throw new IllegalArgumentException("cell " + cell + " outside the " + grid.rows() + "x" + grid.cols() + " grid");
+    }
+
+    private SolveResult query(int start, int goal, SearchWorkspace ws, SolveContext ctx) {
+        long t0 = System.nanoTime();
+        if (grid.isWall(start) || grid.isWall(goal))
+            return new SolveResult("A*", null, -1, 0, System.nanoTime() - t0);
+
+        int cost = AStar.search(grid, start, goal, ws, ctx.cancel);
+        List<Point> path = cost < 0 ? null : AStar.toPoints(grid, ws);
+        ctx.metrics.search(ws.expanded(), ws.pushes(), 0, ws.peakOpen());
+        return new SolveResult("A*", path, cost, ws.expanded(), System.nanoTime() - t0);
+    }
+}
@@ -0,0 +1,45 @@
+// live progress of a running solve, for drawing the search while it happens
+// AStar, BidirectionalSearch and DijkstraSolver ask wantsSnapshot() at their cancellation
+// poll (every POLL_MASK + 1 expansions) and only build a snapshot when it says yes;
+// GeneticSolver publishes its best path after a generation that improved it. HPA* is silent
+// called on the solver thread(s): implementations must be thread-safe and must not block
+public interface SearchObserver {
+
+    SearchObserver NONE = new SearchObserver() {
+        @Override public boolean wantsSnapshot() { return false; }
+        @Override public void publish(Snapshot s) {}
+    };
+
+    boolean wantsSnapshot();
+
+    void publish(Snapshot s);
+
+    // ===================== SNAPSHOT =====================
+    // never modified after publish; cells are row-major indices
+    final class Snapshot {
+        public final long[] closed;   // bit i set = cell i settled, null for Genetic
+        public final int[] frontier;  // queued cells (lazy queues may list a cell twice), null for Genetic
+        public final int[] path;      // S .. cell being expanded (G .. cell backward), or the GA's best path S .. G
+        public final int cost;        // cost of path
+        public final int expanded;    // cells settled so far (searches) / chromosomes scored (Genetic)
+        public final int generation;  // -1 for searches
+
+        public Snapshot(long[] closed, int[] frontier, int[] path, int cost, int expanded, int generation) {
+            this.closed = closed;
+            this.frontier = frontier;
+            this.path = path;
+            this.cost = cost;
+            this.expanded = expanded;
+            this.generation = generation;
+        }
+
+        // start .. cell following parent links (the start's parent is -1)
+        static int[] trace(int[] parent, int cell) {
+            int len = 0;
+            for (int c = cell; c >= 0; c = parent[c]) len++;
+            int[] path = new int[len];
+            for (int c = cell, k = len - 1; k >= 0; c = parent[c]) path[k--] = c;
+            return path;
+        }
+    }
+}
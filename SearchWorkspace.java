@@ -0,0 +1,95 @@
+import java.util.Arrays;
+
+// per-thread scratch state for the grid searches (g, parent, closed, open heap, path buffer)
+// arrays are sized to the largest grid seen and never cleared: an entry is only valid
+// when its stamp equals the current epoch, so starting a new search is O(1)
+public class SearchWorkspace {
+
+    public static final int INF = Integer.MAX_VALUE;
+
+    private static final ThreadLocal<SearchWorkspace> LOCAL =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
+    int[] g = new int[0];
+    int[] parent = new int[0];
+    private int[] seen = new int[0];   // seen[i] == epoch -> g / parent valid
+    private int[] closed = new int[0]; // closed[i] == epoch -> settled
+    private int epoch;
+
+    final IndexedMinHeap open = new IndexedMinHeap();
+
+    // result of the last search: cells start..goal in path[0..pathLength)
+    int[] path = new int[0];
+    int pathLength;
+    int expanded;
+    int pushes;     // heap inserts + decrease-keys
+    int peakOpen;
+
+    public static SearchWorkspace forCurrentThread() {
+        return LOCAL.get();
+    }
+
+    // start a new search over n cells
+    void begin(int n) {
+        if (g.length < n) {
+            g = new int[n];
+            parent = new int[n];
+            seen = new int[n];
+            closed = new int[n];
+            epoch = 0;
+        }
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            epoch = 1;
+        }
+        open.ensureCapacity(n);
+        open.clear();
+        pathLength = 0;
+        expanded = 0;
+        pushes = 0;
+        peakOpen = 0;
+    }
+
+    int g(int i) {
+        return seen[i] == epoch ? g[i] : INF;
+    }
+
+    void set(int i, int cost, int from) {
+        seen[i] = epoch;
+        g[i] = cost;
+        parent[i] = from;
+    }
+
+    boolean isClosed(int i) {
+        return closed[i] == epoch;
+    }
+
+    void close(int i) {
+        closed[i] = epoch;
+    }
+
+    // follow parent links back from goal into path[], start first
+    void tracePath(int start, int goal) {
+        int len = 1;
+        for (int c = goal; c != start; c = parent[c]) len++;
+        if (path.length < len) path = new int[Math.max(len, path.length * 2)];
+        int c = goal;
+        for (int k = len - 1; k >= 0; k--) {
+            path[k] = c;
+            if (k > 0) c = parent[c];
+        }
+        pathLength = len;
+    }
+
+    void appendPath(int cell) {
+        if (pathLength == path.length) path = Arrays.copyOf(path, pathLength * 2 + 1);
+        path[pathLength++] = cell;
+    }
+
+    public int pathLength() { return pathLength; }
+    public int pathCell(int k) { return path[k]; }
+    public int expanded() { return expanded; }
+    public int pushes() { return pushes; }
+    public int peakOpen() { return peakOpen; }
+}
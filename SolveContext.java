@@ -0,0 +1,20 @@
+// per-run hooks passed to the solvers: where to report metrics, when to give up
+// and who watches the search progress
+public class SolveContext {
+
+    public static final SolveContext DEFAULT = new SolveContext(SolverMetrics.NONE, CancellationToken.NONE);
+
+    public final SolverMetrics metrics;
+    public final CancellationToken cancel;
+    public final SearchObserver observer;
+
+    public SolveContext(SolverMetrics metrics, CancellationToken cancel) {
+        this(metrics, cancel, SearchObserver.NONE);
+    }
+
+    public SolveContext(SolverMetrics metrics, CancellationToken cancel, SearchObserver observer) {
+        this.metrics = metrics;
+        this.cancel = cancel;
+        this.observer = observer;
+    }
+}
@@ -0,0 +1,34 @@
+import java.awt.Point;
+import java.util.Collections;
+import java.util.List;
+
+// outcome of one solver run: path S..G, its enter-cost and how much work it took
+public class SolveResult {
+
+    public final String algorithm;
+    public final List<Point> path;   // empty when no path was found
+    public final int cost;           // -1 when no path was found
+    public final int expansions;     // nodes expanded (GA: chromosomes evaluated)
+    public final long elapsedNanos;
+
+    public SolveResult(String algorithm, List<Point> path, int cost, int expansions, long elapsedNanos) {
+        this.algorithm = algorithm;
+        this.path = path == null ? Collections.emptyList() : path;
+        this.cost = this.path.isEmpty() ? -1 : cost;
+        this.expansions = expansions;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public boolean found() {
+        return !path.isEmpty();
+    }
+
+    // moves from S to G
+    public int steps() {
+        return Math.max(0, path.size() - 1);
+    }
+
+    public double seconds() {
+        return elapsedNanos / 1e9;
+    }
+}
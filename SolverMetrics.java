@@ -0,0 +1,73 @@
+import java.util.Locale;
+
+// what a solver run spent its time on; AStar, DijkstraSolver and GeneticSolver report into it
+// solvers count in local fields and report once per search / generation / phase, and every
+// method defaults to a no-op, so NONE costs nothing once the JIT has inlined the empty calls
+public interface SolverMetrics {
+
+    SolverMetrics NONE = new SolverMetrics() {};
+
+    enum Phase { PARSE, SETUP, SEARCH, RECONSTRUCT }
+
+    // one finished graph search: nodes settled, queue inserts (decrease-key counts as one),
+    // outdated queue entries popped and skipped, largest open set
+    default void search(int expanded, int pushes, int stalePops, int peakOpen) {}
+
+    // one GA generation scored
+    default void generation(int evaluations) {}
+
+    default void phase(Phase phase, long nanos) {}
+
+    // ===================== COUNTERS =====================
+    // running totals; synchronized because GA islands report from several threads
+    class Counters implements SolverMetrics {
+        private long expanded, pushes, stalePops;
+        private int peakOpen;
+        private int generations;
+        private long evaluations;
+        private final long[] phaseNanos = new long[Phase.values().length];
+
+        @Override
+        public synchronized void search(int expanded, int pushes, int stalePops, int peakOpen) {
+            this.expanded += expanded;
+            this.pushes += pushes;
+            this.stalePops += stalePops;
+            this.peakOpen = Math.max(this.peakOpen, peakOpen);
+        }
+
+        @Override
+        public synchronized void generation(int evaluations) {
+            generations++;
+            this.evaluations += evaluations;
+        }
+
+        @Override
+        public synchronized void phase(Phase phase, long nanos) {
+            phaseNanos[phase.ordinal()] += nanos;
+        }
+
+        public synchronized long expanded() { return expanded; }
+        public synchronized long pushes() { return pushes; }
+        public synchronized long stalePops() { return stalePops; }
+        public synchronized int peakOpen() { return peakOpen; }
+        public synchronized int generations() { return generations; }
+        public synchronized long evaluations() { return evaluations; }
+        public synchronized long nanos(Phase phase) { return phaseNanos[phase.ordinal()]; }
+
+        // one line for the status bar / logs, parts that were never reported are left out
+        @Override
+        public synchronized String toString() {
+            StringBuilder sb = new StringBuilder();
+            if (pushes > 0)
+                sb.append(String.format("Pushes=%d Stale=%d PeakOpen=%d ", pushes, stalePops, peakOpen));
+            if (generations > 0)
+                sb.append(String.format("Gens=%d Evals=%d ", generations, evaluations));
+            for (Phase p : Phase.values()) {
+                long ns = phaseNanos[p.ordinal()];
+                if (ns > 0)
+                    sb.append(String.format(Locale.ROOT, "%s=%.2fms ", p.name().toLowerCase(Locale.ROOT), ns / 1e6));
+            }
+            return sb.toString().trim();
+        }
+    }
+}
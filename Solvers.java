@@ -0,0 +1,107 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// algorithm names understood by the Swing viewer and the command line
+public class Solvers {
+
+    public static final String[] NAMES = {"A*", "Bi-A*", "Dijkstra", "Bi-Dijkstra", "HPA*", "Genetic"};
+
+    // HPA* keeps one abstraction per grid, built by the first HPA* run on it; edits to a cached
+    // grid go through updateCell() so its planner follows them. Every planner has its own lock
+    // (queries share scratch), so runs on different grids never wait for each other.
+    // A planner holds its grid, so a WeakHashMap would never drop an entry: release() the grid
+    // when it is done with (MazeMain on loading another map, Main after a map's last job)
+    private static final ConcurrentHashMap<MazeGrid, Planner> PLANNERS = new ConcurrentHashMap<>();
+
+    private static final class Planner {
+        final ReentrantLock lock = new ReentrantLock();
+        HierarchicalPlanner hpa; // null until the first run on the grid has built it
+    }
+
+    // one run on a fresh solver; HPA* builds its abstract graph on the first run on a grid
+    // (SETUP phase, not counted in the result time) and reuses it after that
+    public static SolveResult solve(String alg, MazeGrid grid) {
+        return solve(alg, grid, SolveContext.DEFAULT);
+    }
+
+    // all report into ctx.metrics, all but HPA* also into ctx.observer; all can be
+    // cancelled (CancellationException, Genetic returns its best path instead)
+    public static SolveResult solve(String alg, MazeGrid grid, SolveContext ctx) {
+        switch (alg) {
+            case "A*":          return AStar.solve(grid, ctx);
+            case "Bi-A*":       return AStar.solveBidirectional(grid, ctx);
+            case "Dijkstra":    return Dijkstra.solve(grid, ctx);
+            case "Bi-Dijkstra": return Dijkstra.solveBidirectional(grid, ctx);
+            case "HPA*":        return hierarchical(grid, ctx);
+            case "Genetic": {
+                GeneticSolver.Config cfg = new GeneticSolver.Config();
+                cfg.metrics = ctx.metrics;
+                cfg.cancel = ctx.cancel;
+                cfg.observer = ctx.observer;
+                return GeneticSolver.solve(grid, cfg);
+            }
+            default:
+                throw new IllegalArgumentException("unknown algorithm '" + alg + "'");
+        }
+    }
+
+    private static SolveResult hierarchical(MazeGrid grid, SolveContext ctx) {
+        Planner p = PLANNERS.computeIfAbsent(grid, g -> new Planner());
+        lock(p, ctx.cancel);
+        try {
+            if (p.hpa == null) {
+                long t0 = System.nanoTime();
+                p.hpa = new HierarchicalPlanner(grid, HierarchicalPlanner.DEFAULT_CLUSTER, ctx.cancel);
+                ctx.metrics.phase(SolverMetrics.Phase.SETUP, System.nanoTime() - t0);
+            }
+            return p.hpa.solve(ctx);
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    // wait for a planner another run is using, still answering cancel meanwhile
+    private static void lock(Planner p, CancellationToken cancel) {
+        try {
+            while (!p.lock.tryLock(20, TimeUnit.MILLISECONDS)) cancel.check();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted");
+        }
+    }
+
+    // set one cell (cost < 0 -> wall), patching grid's cached HPA* abstraction if there is one
+    public static void updateCell(MazeGrid grid, int r, int c, int cost) {
+        Planner p = PLANNERS.get(grid);
+        if (p == null) {
+            grid.setCell(grid.index(r, c), cost);
+            return;
+        }
+        p.lock.lock();
+        try {
+            if (p.hpa != null) p.hpa.updateCell(r, c, cost);
+            else grid.setCell(grid.index(r, c), cost);
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    // drop grid's cached HPA* abstraction
+    public static void release(MazeGrid grid) {
+        PLANNERS.remove(grid);
+    }
+
+    // whether a run publishes live snapshots to ctx.observer (HPA* does not)
+    public static boolean showsProgress(String alg) {
+        return !"HPA*".equals(alg);
+    }
+
+    // case-insensitive lookup for command line input, null when unknown
+    public static String find(String name) {
+        for (String n : NAMES)
+            if (n.equalsIgnoreCase(name.trim())) return n;
+        return null;
+    }
+}